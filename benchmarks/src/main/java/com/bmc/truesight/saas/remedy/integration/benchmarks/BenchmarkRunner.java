@@ -0,0 +1,39 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Entry point of the benchmarks jar. It accepts the usual JMH command line
+ * options, runs all the benchmarks of this package when none is selected and
+ * always adds the GC profiler, so that the allocations are reported with the
+ * timings.
+ *
+ * @author vitiwari
+ */
+public class BenchmarkRunner {
+
+    private static final String GC_PROFILER = "gc";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+        boolean gcProfiled = false;
+        for (ProfilerConfig profiler : commandLine.getProfilers()) {
+            if (GC_PROFILER.equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass())) {
+                gcProfiled = true;
+            }
+        }
+        if (!gcProfiled) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cost of the JSON serialization of a bulk of events, as done by the bulk
+ * event http client (a new mapper and a String per request) and with a
+ * shared mapper writing the UTF-8 bytes directly. The results are per bulk,
+ * divide them by the batchSize to get the cost per ticket.
+ *
+ * @author vitiwari
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkSerializationBenchmark {
+
+    private static final long SEED = 42l;
+
+    @Param({"INCIDENT_FORM", "CHANGE_FORM"})
+    public ARServerForm form;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private List<TSIEvent> events;
+
+    @Setup
+    public void setup() throws Exception {
+        TemplateFixtures fixtures = new TemplateFixtures(form);
+        RemedyEntryEventAdapter adapter = fixtures.createAdapter();
+        events = new ArrayList<>(batchSize);
+        for (Entry entry : fixtures.createEntries(batchSize, SEED)) {
+            events.add(adapter.convertEntryToEvent(fixtures.getTemplate(), entry));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeAsString() throws Exception {
+        return new ObjectMapper().writeValueAsString(events).getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public byte[] writeAsBytesSharedMapper() throws Exception {
+        return mapper.writeValueAsBytes(events);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.util.StringUtil;
+
+/**
+ * Cost of one ticket in the adapter: the conversion of an {@link Entry} into
+ * a {@link TSIEvent}, and the event size check done before sending it. With
+ * the GC profiler, gc.alloc.rate.norm is the no of bytes allocated per
+ * ticket.
+ *
+ * @author vitiwari
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventConversionBenchmark {
+
+    private static final int FIXTURE_COUNT = 1024;
+    private static final long SEED = 42l;
+
+    @Param({"INCIDENT_FORM", "CHANGE_FORM"})
+    public ARServerForm form;
+
+    private Template template;
+    private RemedyEntryEventAdapter adapter;
+    private Entry[] entries;
+    private TSIEvent[] events;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        TemplateFixtures fixtures = new TemplateFixtures(form);
+        template = fixtures.getTemplate();
+        adapter = fixtures.createAdapter();
+        entries = fixtures.createEntries(FIXTURE_COUNT, SEED);
+        events = new TSIEvent[FIXTURE_COUNT];
+        for (int i = 0; i < FIXTURE_COUNT; i++) {
+            events[i] = adapter.convertEntryToEvent(template, entries[i]);
+        }
+    }
+
+    // cycles over the fixtures, FIXTURE_COUNT being a power of two
+    private int nextIndex() {
+        next = (next + 1) & (FIXTURE_COUNT - 1);
+        return next;
+    }
+
+    @Benchmark
+    public TSIEvent convertEntryToEvent() {
+        return adapter.convertEntryToEvent(template, entries[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean isObjectJsonSizeAllowed() {
+        int index = nextIndex();
+        return StringUtil.isObjectJsonSizeAllowed(events[index], new InvalidEvent(entries[index].getEntryId()));
+    }
+}
@@ -0,0 +1,242 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.bmc.arsys.api.ARErrors;
+import com.bmc.arsys.api.ARException;
+import com.bmc.arsys.api.Constants;
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.Field;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.arsys.api.QualifierInfo;
+import com.bmc.arsys.api.SortInfo;
+import com.bmc.arsys.api.StatusInfo;
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
+
+/**
+ * An in-process stand-in of an AR Server, serving the synthetic tickets of a
+ * {@link SyntheticTicketGenerator}. The tickets are the result of any query,
+ * the qualification and the sort order are not evaluated; the paging is, with
+ * the cost of a real server:
+ * <ul>
+ * <li>a fixed latency per call,</li>
+ * <li>a cost per skipped entry, a page at a high offset being slower as the
+ * database scans the entries before it,</li>
+ * <li>a cost per returned entry,</li>
+ * <li>a maximum no of entries per call, beyond which the entries are
+ * truncated with the AR_WARN_MAX_ENTRIES_SERVER warning,</li>
+ * <li>faults, randomly or every nth call, raised as {@link ARException}.</li>
+ * </ul>
+ * One instance can be shared by several readers, the last status being kept
+ * per thread.
+ *
+ * @author vitiwari
+ */
+public class FakeARServerContext implements ARServerContext {
+
+    // ERROR (90): Cannot establish a network connection to the AR System server
+    private static final int FAULT_MESSAGE_NUM = 90;
+    private static final int LOGIN_FAILED_MESSAGE_NUM = 623;
+
+    private final SyntheticTicketGenerator generator;
+    private final int entryCount;
+
+    private long latencyNanos;
+    private long offsetCostNanos;
+    private long entryCostNanos;
+    private int maxEntries = Integer.MAX_VALUE;
+    private double faultRate;
+    private int faultEvery;
+    private boolean loginFailure;
+
+    private final ThreadLocal<List<StatusInfo>> lastStatus = new ThreadLocal<>();
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong faultCount = new AtomicLong();
+    private final AtomicLong entriesServed = new AtomicLong();
+
+    /**
+     * @param generator generator of the tickets of the form to serve
+     * @param entryCount no of tickets on the server
+     */
+    public FakeARServerContext(SyntheticTicketGenerator generator, int entryCount) {
+        this.generator = generator;
+        this.entryCount = entryCount;
+    }
+
+    @Override
+    public void login() throws ARException {
+        pause(latencyNanos);
+        if (loginFailure) {
+            throw new ARException(Constants.AR_RETURN_ERROR, LOGIN_FAILED_MESSAGE_NUM, "Authentication failed");
+        }
+    }
+
+    @Override
+    public void logout() {
+    }
+
+    @Override
+    public List<Entry> getListEntryObjects(String formName, QualifierInfo qualification, int firstRetrieve, int maxRetrieve,
+            List<SortInfo> sortList, int[] fieldIds, boolean useLocale, OutputInteger nMatches) throws ARException {
+        call();
+        int first = Math.max(0, firstRetrieve);
+        int requested = maxRetrieve > 0 ? maxRetrieve : Integer.MAX_VALUE;
+        int count = Math.max(0, Math.min(entryCount - first, Math.min(requested, maxEntries)));
+        List<StatusInfo> status = new ArrayList<>();
+        if (count == maxEntries && maxEntries < requested && first + count < entryCount) {
+            status.add(new StatusInfo(Constants.AR_RETURN_WARNING, ARErrors.AR_WARN_MAX_ENTRIES_SERVER, "Maximum entries exceeded", null));
+        }
+        lastStatus.set(status);
+        pause(latencyNanos + first * offsetCostNanos + count * entryCostNanos);
+        if (nMatches != null) {
+            nMatches.setValue(entryCount);
+        }
+        Set<Integer> fields = toSet(fieldIds);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            entries.add(project(generator.generate(i), fields));
+        }
+        entriesServed.addAndGet(count);
+        return entries;
+    }
+
+    @Override
+    public List<Entry> getListEntryObjects(String formName, List<String> entryIds, int[] fieldIds) throws ARException {
+        call();
+        lastStatus.set(new ArrayList<StatusInfo>());
+        pause(latencyNanos + entryIds.size() * entryCostNanos);
+        Set<Integer> fields = toSet(fieldIds);
+        List<Entry> entries = new ArrayList<>(entryIds.size());
+        for (String entryId : entryIds) {
+            int index = SyntheticTicketGenerator.toIndex(entryId);
+            if (index >= 0 && index < entryCount) {
+                entries.add(project(generator.generate(index), fields));
+            }
+        }
+        entriesServed.addAndGet(entries.size());
+        return entries;
+    }
+
+    @Override
+    public List<Field> getListFieldObjects(String formName) throws ARException {
+        call();
+        pause(latencyNanos);
+        return new ArrayList<>(generator.getFieldIdFieldMap().values());
+    }
+
+    @Override
+    public List<StatusInfo> getLastStatus() {
+        List<StatusInfo> status = lastStatus.get();
+        return status != null ? status : Collections.<StatusInfo>emptyList();
+    }
+
+    @Override
+    public void setLastStatus(List<StatusInfo> statusList) {
+        lastStatus.set(statusList);
+    }
+
+    private void call() throws ARException {
+        long call = callCount.incrementAndGet();
+        if ((faultEvery > 0 && call % faultEvery == 0) || (faultRate > 0 && ThreadLocalRandom.current().nextDouble() < faultRate)) {
+            faultCount.incrementAndGet();
+            pause(latencyNanos);
+            throw new ARException(Constants.AR_RETURN_ERROR, FAULT_MESSAGE_NUM, "Injected fault on call " + call);
+        }
+    }
+
+    private static void pause(long nanos) {
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+
+    private static Set<Integer> toSet(int[] fieldIds) {
+        if (fieldIds == null || fieldIds.length == 0) {
+            return null;
+        }
+        Set<Integer> fields = new HashSet<>();
+        for (int fieldId : fieldIds) {
+            fields.add(fieldId);
+        }
+        return fields;
+    }
+
+    private static Entry project(Entry entry, Set<Integer> fields) {
+        if (fields != null) {
+            entry.keySet().retainAll(fields);
+        }
+        return entry;
+    }
+
+    /**
+     * @param latencyMs fixed latency of every call
+     */
+    public void setLatencyMs(long latencyMs) {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+    }
+
+    /**
+     * @param offsetCostNanos cost of every entry skipped before the first
+     * entry of a page
+     */
+    public void setOffsetCostNanos(long offsetCostNanos) {
+        this.offsetCostNanos = offsetCostNanos;
+    }
+
+    /**
+     * @param entryCostNanos cost of every entry returned
+     */
+    public void setEntryCostNanos(long entryCostNanos) {
+        this.entryCostNanos = entryCostNanos;
+    }
+
+    /**
+     * @param maxEntries maximum no of entries returned by a call, like the
+     * Max-Entries-Per-Query setting of the server
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries > 0 ? maxEntries : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param faultRate probability of a call to fail
+     */
+    public void setFaultRate(double faultRate) {
+        this.faultRate = faultRate;
+    }
+
+    /**
+     * @param faultEvery every nth call fails, 0 to disable
+     */
+    public void setFaultEvery(int faultEvery) {
+        this.faultEvery = faultEvery;
+    }
+
+    public void setLoginFailure(boolean loginFailure) {
+        this.loginFailure = loginFailure;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    public long getFaultCount() {
+        return faultCount.get();
+    }
+
+    public long getEntriesServed() {
+        return entriesServed.get();
+    }
+}
@@ -0,0 +1,269 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import com.bmc.truesight.saas.remedy.integration.beans.Accepted;
+import com.bmc.truesight.saas.remedy.integration.beans.Error;
+import com.bmc.truesight.saas.remedy.integration.beans.Result;
+import com.bmc.truesight.saas.remedy.integration.beans.Success;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEventResponse;
+import com.bmc.truesight.saas.remedy.integration.impl.CallableBulkEventHttpClient;
+import com.bmc.truesight.saas.remedy.integration.util.NamedThreadFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded stand-in of the TSI bulk event endpoint, on the loopback
+ * interface. It implements the contract used by the
+ * {@link CallableBulkEventHttpClient}: a JSON array of events is posted with
+ * basic authentication, and a {@link TSIEventResponse} with the sent count,
+ * the accepted events and the rejected ones is returned. The behaviour of the
+ * real service can be reproduced:
+ * <ul>
+ * <li>a latency drawn from a distribution for every request,</li>
+ * <li>a rate of events rejected individually, giving partial results,</li>
+ * <li>rates of 401, 429 and 5xx responses,</li>
+ * <li>a maximum request size, beyond which 413 is returned.</li>
+ * </ul>
+ *
+ * @author vitiwari
+ */
+public class FakeTsiEndpoint implements AutoCloseable {
+
+    public static final String EVENTS_PATH = "/v1/events";
+    private static final int STATUS_ACCEPTED = 202;
+    private static final int STATUS_UNAUTHORIZED = 401;
+    private static final int STATUS_TOO_LARGE = 413;
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_UNAVAILABLE = 503;
+    private static final String REJECTION_MESSAGE = "Event rejected by the stand-in endpoint";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String apiToken;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private LongSupplier latencyNanos = fixedLatency(0);
+    private double rejectionRate;
+    private double unauthorizedRate;
+    private double tooManyRequestsRate;
+    private double serverErrorRate;
+    private long maxRequestBytes = Long.MAX_VALUE;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    /**
+     * @param apiToken token expected in the basic authentication, requests
+     * with another token get 401
+     */
+    public FakeTsiEndpoint(String apiToken) {
+        this.apiToken = apiToken;
+    }
+
+    /**
+     * Starts the endpoint on a free port.
+     *
+     * @throws IOException if the server can not be bound
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(EVENTS_PATH, this::handle);
+        executor = Executors.newCachedThreadPool(new NamedThreadFactory("tsi-endpoint", true));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return url to use as tsiEventEndpoint
+     */
+    public String getEndpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + EVENTS_PATH;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            byte[] body = read(exchange.getRequestBody());
+            bytesReceived.addAndGet(body.length);
+            long latency = latencyNanos.getAsLong();
+            if (latency > 0) {
+                LockSupport.parkNanos(latency);
+            }
+            int failure = failureStatus(exchange, body);
+            if (failure > 0) {
+                failedRequestCount.incrementAndGet();
+                exchange.sendResponseHeaders(failure, -1);
+                return;
+            }
+            JsonNode events = mapper.readTree(body);
+            byte[] response = mapper.writeValueAsBytes(respond(events.size()));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(STATUS_ACCEPTED, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int failureStatus(HttpExchange exchange, byte[] body) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String expected = "Basic " + CallableBulkEventHttpClient.encodeBase64(":" + apiToken);
+        if (!expected.equals(exchange.getRequestHeaders().getFirst("Authorization")) || random.nextDouble() < unauthorizedRate) {
+            return STATUS_UNAUTHORIZED;
+        }
+        if (body.length > maxRequestBytes) {
+            return STATUS_TOO_LARGE;
+        }
+        if (random.nextDouble() < tooManyRequestsRate) {
+            return STATUS_TOO_MANY_REQUESTS;
+        }
+        if (random.nextDouble() < serverErrorRate) {
+            return STATUS_UNAVAILABLE;
+        }
+        return 0;
+    }
+
+    private TSIEventResponse respond(int size) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Accepted> accepted = new ArrayList<>(size);
+        List<Error> errors = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (random.nextDouble() < rejectionRate) {
+                errors.add(new Error(i, REJECTION_MESSAGE));
+            } else {
+                accepted.add(new Accepted(i, UUID.randomUUID().toString()));
+            }
+        }
+        eventCount.addAndGet(size);
+        rejectedCount.addAndGet(errors.size());
+        Success success = errors.isEmpty() ? Success.TRUE : (accepted.isEmpty() ? Success.FALSE : Success.PARTIAL);
+        TSIEventResponse response = new TSIEventResponse();
+        response.setResult(new Result(size, success, errors, accepted));
+        return response;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param latencyMs latency of every request
+     * @return latency distribution, in nanoseconds
+     */
+    public static LongSupplier fixedLatency(long latencyMs) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        return () -> nanos;
+    }
+
+    /**
+     * @param minMs minimum latency
+     * @param maxMs maximum latency
+     * @return latency distribution, in nanoseconds
+     */
+    public static LongSupplier uniformLatency(long minMs, long maxMs) {
+        long min = TimeUnit.MILLISECONDS.toNanos(minMs);
+        long max = TimeUnit.MILLISECONDS.toNanos(maxMs);
+        return () -> min + (long) (ThreadLocalRandom.current().nextDouble() * (max - min));
+    }
+
+    /**
+     * A long tailed distribution, like the latencies of a real service.
+     *
+     * @param medianMs median latency
+     * @param sigma standard deviation of the logarithm of the latency, ex 0.5
+     * gives a p99 about 3 times the median
+     * @return latency distribution, in nanoseconds
+     */
+    public static LongSupplier logNormalLatency(long medianMs, double sigma) {
+        double median = TimeUnit.MILLISECONDS.toNanos(medianMs);
+        return () -> (long) (median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    public void setLatency(LongSupplier latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
+    /**
+     * @param rejectionRate probability of an event to be rejected in a
+     * successful request
+     */
+    public void setRejectionRate(double rejectionRate) {
+        this.rejectionRate = rejectionRate;
+    }
+
+    public void setUnauthorizedRate(double unauthorizedRate) {
+        this.unauthorizedRate = unauthorizedRate;
+    }
+
+    public void setTooManyRequestsRate(double tooManyRequestsRate) {
+        this.tooManyRequestsRate = tooManyRequestsRate;
+    }
+
+    public void setServerErrorRate(double serverErrorRate) {
+        this.serverErrorRate = serverErrorRate;
+    }
+
+    /**
+     * @param maxRequestBytes maximum size of a request body
+     */
+    public void setMaxRequestBytes(long maxRequestBytes) {
+        this.maxRequestBytes = maxRequestBytes;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getFailedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
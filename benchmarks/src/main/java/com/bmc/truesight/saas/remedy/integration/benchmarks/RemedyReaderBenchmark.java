@@ -0,0 +1,128 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.RemedyEntryReader;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.impl.GenericRemedyReader;
+
+/**
+ * Time to read a whole form from a {@link FakeARServerContext} with the
+ * {@link GenericRemedyReader}, for several chunk sizes, sequentially and with
+ * parallel readers over disjoint offsets, with and without faults. It shows
+ * the trade-off between the latency per call and the offset-dependent page
+ * cost of the server.
+ *
+ * @author vitiwari
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemedyReaderBenchmark {
+
+    private static final long SEED = 42l;
+    private static final int READER_THREADS = 4;
+
+    @Param({"20000"})
+    public int entryCount;
+
+    @Param({"500", "2000", "5000"})
+    public int chunkSize;
+
+    @Param({"2"})
+    public long latencyMs;
+
+    @Param({"200"})
+    public long offsetCostNanos;
+
+    @Param({"0", "0.05"})
+    public double faultRate;
+
+    private final RemedyEntryReader reader = new GenericRemedyReader();
+    private FakeARServerContext server;
+    private Template template;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() throws Exception {
+        TemplateFixtures fixtures = new TemplateFixtures(ARServerForm.INCIDENT_FORM);
+        template = fixtures.getTemplate();
+        template.getConfig().setStartDateTime(new Date(0));
+        template.getConfig().setEndDateTime(new Date());
+        template.getConfig().setRetryConfig(3);
+        template.getConfig().setWaitMsBeforeRetry(0);
+        server = new FakeARServerContext(fixtures.createGenerator(SEED), entryCount);
+        server.setLatencyMs(latencyMs);
+        server.setOffsetCostNanos(offsetCostNanos);
+        server.setEntryCostNanos(2000);
+        server.setFaultRate(faultRate);
+        executor = Executors.newFixedThreadPool(READER_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int readSequential() throws Exception {
+        return readRange(0, entryCount);
+    }
+
+    @Benchmark
+    public int readParallel() throws Exception {
+        int share = (entryCount + READER_THREADS - 1) / READER_THREADS;
+        List<Future<Integer>> reads = new ArrayList<>();
+        for (int i = 0; i < READER_THREADS; i++) {
+            int from = i * share;
+            int to = Math.min(entryCount, from + share);
+            reads.add(executor.submit(() -> readRange(from, to)));
+        }
+        int read = 0;
+        for (Future<Integer> future : reads) {
+            read += future.get();
+        }
+        return read;
+    }
+
+    private int readRange(int from, int to) throws Exception {
+        int read = 0;
+        int startFrom = from;
+        OutputInteger recordsCount = new OutputInteger();
+        while (startFrom < to) {
+            List<Entry> entries = reader.readRemedyEntries(server, ARServerForm.INCIDENT_FORM, template, startFrom,
+                    Math.min(chunkSize, to - startFrom), recordsCount);
+            if (entries.isEmpty()) {
+                break;
+            }
+            read += entries.size();
+            startFrom += entries.size();
+        }
+        return read;
+    }
+}
@@ -0,0 +1,257 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.bmc.arsys.api.DataType;
+import com.bmc.arsys.api.DateTimeField;
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.Field;
+import com.bmc.arsys.api.IntegerField;
+import com.bmc.arsys.api.SelectionField;
+import com.bmc.arsys.api.Timestamp;
+import com.bmc.arsys.api.Value;
+import com.bmc.truesight.saas.remedy.integration.beans.FieldItem;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+
+/**
+ * Deterministic generator of synthetic tickets, with a value for every field
+ * of the fieldDefinitionMap of a template and distributions close to a
+ * production form:
+ * <ul>
+ * <li>the entry id and the ticket id (ex Incident_Number) are unique and
+ * follow the index,</li>
+ * <li>the Last_Modified_Date increases with the index, the Submit_Date is up
+ * to 30 days earlier, the other dates are mostly null and fall in
+ * between,</li>
+ * <li>the selection values are skewed towards the first values,</li>
+ * <li>the long text fields (ex Detailed_Description) have a long tailed
+ * length, a few of them exceed the maximum event size,</li>
+ * <li>some of the short text and integer fields are null.</li>
+ * </ul>
+ * The ticket at an index only depends on the seed and the index, so tickets
+ * can be generated in any order and from several threads. The text values
+ * are cut from a shared corpus and the selection and null values are shared
+ * between the tickets, so that generating a ticket costs little more than
+ * allocating it.
+ *
+ * @author vitiwari
+ */
+public class SyntheticTicketGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final int SUBMIT_DATE_FIELD_ID = 3;
+    private static final int STATUS_FIELD_ID = 7;
+    // the tickets are spread from 2017 on, AR timestamps are in seconds
+    private static final long BASE_TIMESTAMP = 1483228800l;
+    private static final int MAX_OPEN_SECONDS = 30 * 24 * 3600;
+    private static final int CORPUS_CHARS = 1 << 16;
+    private static final int ENTRY_ID_DIGITS = 15;
+    private static final double NULL_DATE_RATE = 0.6;
+    private static final double NULL_TEXT_RATE = 0.15;
+    private static final double NULL_INTEGER_RATE = 0.1;
+    private static final double NULL_SELECTION_RATE = 0.05;
+    private static final double LONG_TEXT_MEDIAN = 600;
+    private static final double LONG_TEXT_SIGMA = 1.0;
+    private static final double OVERSIZED_TEXT_RATE = 0.001;
+    private static final Value NULL_VALUE = new Value();
+
+    private enum Kind {
+        ENTRY_ID, IDENTIFIER, SUBMIT_DATE, MODIFIED_DATE, DATE, SELECTION, INTEGER, SHORT_TEXT, LONG_TEXT
+    }
+
+    private static class FieldPlan {
+
+        private final Integer fieldId;
+        private final Kind kind;
+        private final Value[] selectionValues;
+
+        FieldPlan(Integer fieldId, Kind kind, Value[] selectionValues) {
+            this.fieldId = fieldId;
+            this.kind = kind;
+            this.selectionValues = selectionValues;
+        }
+    }
+
+    private final Map<Integer, Field> fieldIdFieldMap;
+    private final String idPrefix;
+    private final long seed;
+    private final FieldPlan[] plans;
+    private final String corpus;
+    private long secondsBetweenTickets = 30;
+
+    /**
+     * @param template template whose fieldDefinitionMap is generated
+     * @param fieldIdFieldMap fields of the template, their type gives the type
+     * of the values
+     * @param identifierFieldIds fields holding the ticket id, ex the
+     * Incident_Number
+     * @param idPrefix prefix of the ticket ids, ex INC
+     * @param seed seed of the values, the same seed gives the same tickets
+     */
+    public SyntheticTicketGenerator(Template template, Map<Integer, Field> fieldIdFieldMap, List<Integer> identifierFieldIds,
+            String idPrefix, long seed) {
+        this.fieldIdFieldMap = fieldIdFieldMap;
+        this.idPrefix = idPrefix;
+        this.seed = seed;
+        List<FieldPlan> fieldPlans = new ArrayList<>();
+        for (Map.Entry<String, FieldItem> definition : template.getFieldDefinitionMap().entrySet()) {
+            Integer fieldId = definition.getValue().getFieldId();
+            Field field = fieldIdFieldMap.get(fieldId);
+            if (fieldId == Constants.REQUEST_ID_FIELD_ID) {
+                fieldPlans.add(new FieldPlan(fieldId, Kind.ENTRY_ID, null));
+            } else if (identifierFieldIds.contains(fieldId)) {
+                fieldPlans.add(new FieldPlan(fieldId, Kind.IDENTIFIER, null));
+            } else if (field instanceof SelectionField) {
+                fieldPlans.add(new FieldPlan(fieldId, Kind.SELECTION, toValues(definition.getValue().getValueMap())));
+            } else if (field instanceof DateTimeField) {
+                Kind kind = fieldId == SUBMIT_DATE_FIELD_ID ? Kind.SUBMIT_DATE : (fieldId == Constants.LAST_MODIFIED_DATE_FIELD_ID ? Kind.MODIFIED_DATE : Kind.DATE);
+                fieldPlans.add(new FieldPlan(fieldId, kind, null));
+            } else if (field instanceof IntegerField) {
+                fieldPlans.add(new FieldPlan(fieldId, Kind.INTEGER, null));
+            } else {
+                fieldPlans.add(new FieldPlan(fieldId, TemplateFixtures.isLongText(definition.getKey()) ? Kind.LONG_TEXT : Kind.SHORT_TEXT, null));
+            }
+        }
+        this.plans = fieldPlans.toArray(new FieldPlan[fieldPlans.size()]);
+        this.corpus = createCorpus(new SplittableRandom(seed));
+    }
+
+    private static Value[] toValues(Map<String, String> valueMap) {
+        List<Value> values = new ArrayList<>();
+        for (String key : valueMap.keySet()) {
+            values.add(new Value(Integer.parseInt(key), DataType.ENUM));
+        }
+        return values.toArray(new Value[values.size()]);
+    }
+
+    private static String createCorpus(SplittableRandom random) {
+        StringBuilder text = new StringBuilder(CORPUS_CHARS + 16);
+        while (text.length() < CORPUS_CHARS) {
+            int word = 2 + random.nextInt(9);
+            for (int i = 0; i < word; i++) {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+            text.append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        text.setLength(CORPUS_CHARS);
+        return text.toString();
+    }
+
+    /**
+     * @param index index of the ticket, its entry id is index + 1
+     * @return the ticket at the index
+     */
+    public Entry generate(int index) {
+        SplittableRandom random = new SplittableRandom(seed + index * GOLDEN_GAMMA);
+        long modified = BASE_TIMESTAMP + index * secondsBetweenTickets;
+        long submitted = modified - random.nextInt(MAX_OPEN_SECONDS);
+        String entryId = toEntryId(index);
+        Entry entry = new Entry();
+        entry.setEntryId(entryId);
+        for (FieldPlan plan : plans) {
+            entry.put(plan.fieldId, createValue(plan, entryId, submitted, modified, random));
+        }
+        return entry;
+    }
+
+    private Value createValue(FieldPlan plan, String entryId, long submitted, long modified, SplittableRandom random) {
+        switch (plan.kind) {
+            case ENTRY_ID:
+                return new Value(entryId, DataType.CHAR);
+            case IDENTIFIER:
+                // same digits as the entry id, ex INC000000000042
+                return new Value(idPrefix + entryId.substring(idPrefix.length()), DataType.CHAR);
+            case SUBMIT_DATE:
+                return new Value(new Timestamp(submitted), DataType.TIME);
+            case MODIFIED_DATE:
+                return new Value(new Timestamp(modified), DataType.TIME);
+            case DATE:
+                if (random.nextDouble() < NULL_DATE_RATE) {
+                    return NULL_VALUE;
+                }
+                return new Value(new Timestamp(submitted + random.nextLong(modified - submitted + 1)), DataType.TIME);
+            case SELECTION:
+                if (plan.fieldId != STATUS_FIELD_ID && random.nextDouble() < NULL_SELECTION_RATE) {
+                    return NULL_VALUE;
+                }
+                double skewed = random.nextDouble();
+                return plan.selectionValues[(int) (plan.selectionValues.length * skewed * skewed)];
+            case INTEGER:
+                if (random.nextDouble() < NULL_INTEGER_RATE) {
+                    return NULL_VALUE;
+                }
+                return new Value(random.nextInt(random.nextInt(1000) + 1), DataType.INTEGER);
+            case LONG_TEXT:
+                return new Value(text(longTextLength(random), random), DataType.CHAR);
+            default:
+                if (random.nextDouble() < NULL_TEXT_RATE) {
+                    return NULL_VALUE;
+                }
+                return new Value(text(4 + random.nextInt(36), random), DataType.CHAR);
+        }
+    }
+
+    private static int longTextLength(SplittableRandom random) {
+        if (random.nextDouble() < OVERSIZED_TEXT_RATE) {
+            return Constants.MAX_EVENT_SIZE_ALLOWED_BYTES.intValue();
+        }
+        // log-normal, from the sum of uniforms approximation of a gaussian
+        double gaussian = random.nextDouble() + random.nextDouble() + random.nextDouble() + random.nextDouble() - 2;
+        double length = LONG_TEXT_MEDIAN * Math.exp(LONG_TEXT_SIGMA * gaussian * Math.sqrt(3));
+        return (int) Math.max(20, Math.min(CORPUS_CHARS / 2, length));
+    }
+
+    private String text(int length, SplittableRandom random) {
+        int start = random.nextInt(CORPUS_CHARS - length);
+        return corpus.substring(start, start + length);
+    }
+
+    /**
+     * @param from index of the first ticket
+     * @param count no of tickets
+     * @return the tickets, generated lazily
+     */
+    public Stream<Entry> stream(int from, int count) {
+        return IntStream.range(from, from + count).mapToObj(this::generate);
+    }
+
+    /**
+     * @param secondsBetweenTickets interval between the Last_Modified_Date of
+     * two consecutive tickets
+     */
+    public void setSecondsBetweenTickets(long secondsBetweenTickets) {
+        this.secondsBetweenTickets = secondsBetweenTickets;
+    }
+
+    public Map<Integer, Field> getFieldIdFieldMap() {
+        return fieldIdFieldMap;
+    }
+
+    public static String toEntryId(int index) {
+        char[] digits = new char[ENTRY_ID_DIGITS];
+        long value = index + 1l;
+        for (int i = ENTRY_ID_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * @param entryId entry id of a generated ticket
+     * @return index of the ticket, -1 if it is not an entry id of the generator
+     */
+    public static int toIndex(String entryId) {
+        try {
+            return Integer.parseInt(entryId) - 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
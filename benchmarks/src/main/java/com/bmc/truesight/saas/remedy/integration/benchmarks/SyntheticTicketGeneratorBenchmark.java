@@ -0,0 +1,64 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+
+/**
+ * Cost of a synthetic ticket, alone and converted into an event, so that the
+ * share of the generator can be subtracted from the scale tests it feeds.
+ *
+ * @author vitiwari
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SyntheticTicketGeneratorBenchmark {
+
+    private static final long SEED = 42l;
+
+    @Param({"INCIDENT_FORM", "CHANGE_FORM"})
+    public ARServerForm form;
+
+    private SyntheticTicketGenerator generator;
+    private Template template;
+    private RemedyEntryEventAdapter adapter;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        TemplateFixtures fixtures = new TemplateFixtures(form);
+        generator = fixtures.createGenerator(SEED);
+        template = fixtures.getTemplate();
+        adapter = fixtures.createAdapter();
+    }
+
+    @Benchmark
+    public Entry generate() {
+        return generator.generate(next++ & Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public TSIEvent generateAndConvert() {
+        return adapter.convertEntryToEvent(template, generator.generate(next++ & Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,135 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bmc.arsys.api.CharacterField;
+import com.bmc.arsys.api.DateTimeField;
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.EnumItem;
+import com.bmc.arsys.api.Field;
+import com.bmc.arsys.api.IntegerField;
+import com.bmc.arsys.api.SelectionField;
+import com.bmc.arsys.api.SelectionFieldLimit;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.FieldItem;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.exception.ParsingException;
+import com.bmc.truesight.saas.remedy.integration.impl.GenericTemplatePreParser;
+
+/**
+ * Synthetic {@link Entry} and {@link Field} fixtures built from the default
+ * templates of the library, so that the benchmarks run without an AR server.
+ * The templates only carry the field ids, the field types are derived from
+ * the field definitions: a field with a valueMap is a selection field, a
+ * field named like a date is a date time field, a field named like a counter
+ * is an integer field, any other field is a character field. The entries are
+ * generated by a {@link SyntheticTicketGenerator}.
+ *
+ * @author vitiwari
+ */
+public class TemplateFixtures {
+
+    private static final String[] DATE_TOKENS = {"DATE"};
+    private static final String[] INTEGER_TOKENS = {"_COUNT", "_LEVEL", "_TRANSFERS", "_MINUTES", "_WEIGHT", "_SECONDS", "HOUR", "_TIME_SPENT"};
+    private static final String[] LONG_TEXT_FIELDS = {"@DETAILED_DESCRIPTION", "@RESOLUTION", "@STATUS_HISTORY"};
+
+    private final ARServerForm form;
+    private final Template template;
+    private final Map<Integer, Field> fieldIdFieldMap = new HashMap<>();
+
+    public TemplateFixtures(ARServerForm form) throws ParsingException {
+        this.form = form;
+        this.template = new GenericTemplatePreParser().loadDefaults(form);
+        for (Map.Entry<String, FieldItem> definition : template.getFieldDefinitionMap().entrySet()) {
+            Field field = createField(definition.getKey(), definition.getValue());
+            fieldIdFieldMap.put(field.getFieldID(), field);
+        }
+    }
+
+    private static Field createField(String name, FieldItem fieldItem) {
+        Field field;
+        if (fieldItem.getValueMap() != null && !fieldItem.getValueMap().isEmpty()) {
+            List<EnumItem> items = new ArrayList<>();
+            for (Map.Entry<String, String> item : fieldItem.getValueMap().entrySet()) {
+                items.add(new EnumItem(item.getValue(), Integer.parseInt(item.getKey())));
+            }
+            field = new SelectionField();
+            field.setFieldLimit(new SelectionFieldLimit(items));
+        } else if (contains(name, DATE_TOKENS)) {
+            field = new DateTimeField();
+        } else if (contains(name, INTEGER_TOKENS)) {
+            field = new IntegerField();
+        } else {
+            field = new CharacterField();
+        }
+        field.setFieldID(fieldItem.getFieldId());
+        field.setName(name.substring(1));
+        return field;
+    }
+
+    private static boolean contains(String name, String[] tokens) {
+        for (String token : tokens) {
+            if (name.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param name placeholder of the field, ex @DETAILED_DESCRIPTION
+     * @return true if the field holds a free text description
+     */
+    static boolean isLongText(String name) {
+        return contains(name, LONG_TEXT_FIELDS);
+    }
+
+    /**
+     * @param seed seed of the values, the same seed gives the same entries
+     * @return generator of the tickets of the form
+     */
+    public SyntheticTicketGenerator createGenerator(long seed) {
+        List<Integer> identifierFieldIds = new ArrayList<>();
+        for (String property : template.getEventDefinition().getFingerprintFields()) {
+            String placeholder = template.getEventDefinition().getProperties().get(property);
+            FieldItem fieldItem = placeholder != null ? template.getFieldDefinitionMap().get(placeholder) : null;
+            if (fieldItem != null) {
+                identifierFieldIds.add(fieldItem.getFieldId());
+            }
+        }
+        String idPrefix = form == ARServerForm.INCIDENT_FORM ? "INC" : "CRQ";
+        return new SyntheticTicketGenerator(template, fieldIdFieldMap, identifierFieldIds, idPrefix, seed);
+    }
+
+    /**
+     * Creates the first tickets of a generator.
+     *
+     * @param count no of entries
+     * @param seed seed of the values, the same seed gives the same entries
+     * @return entries
+     */
+    public Entry[] createEntries(int count, long seed) {
+        SyntheticTicketGenerator generator = createGenerator(seed);
+        Entry[] entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = generator.generate(i);
+        }
+        return entries;
+    }
+
+    public RemedyEntryEventAdapter createAdapter() {
+        return new RemedyEntryEventAdapter(fieldIdFieldMap);
+    }
+
+    public Template getTemplate() {
+        return template;
+    }
+
+    public Map<Integer, Field> getFieldIdFieldMap() {
+        return fieldIdFieldMap;
+    }
+}
@@ -0,0 +1,175 @@
+package com.bmc.truesight.saas.remedy.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.Result;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
+import com.bmc.truesight.saas.remedy.integration.impl.CallableBulkEventHttpClient;
+import com.bmc.truesight.saas.remedy.integration.impl.InMemoryMetricsRegistry;
+import com.bmc.truesight.saas.remedy.integration.util.Metrics;
+
+/**
+ * Load test of the bulk event http client against a {@link FakeTsiEndpoint}.
+ * For every thread count, threadCount workers send batches concurrently, as
+ * the ingestion executor does, and the driver reports the events/sec and the
+ * p50/p99 latency of a batch (including the retries of the client). The run
+ * is configured with system properties:
+ * <ul>
+ * <li>events: no of events sent per thread count, default 100000</li>
+ * <li>batchSize: no of events per request, default 100</li>
+ * <li>threadCounts: comma separated thread counts, default 1,2,5,10,20</li>
+ * <li>medianLatencyMs / latencySigma: log-normal latency of the endpoint,
+ * default 20 / 0.5</li>
+ * <li>rejectionRate, tooManyRequestsRate, serverErrorRate: faults of the
+ * endpoint, default 0</li>
+ * <li>retryConfig / waitMsBeforeRetry: retries of the client, default 2 /
+ * 100</li>
+ * <li>metrics: print the stage metrics of the client recorded with an
+ * {@link InMemoryMetricsRegistry}, default false</li>
+ * </ul>
+ * ex: {@code java -cp target/benchmarks.jar -DthreadCounts=5,10 com.bmc.truesight.saas.remedy.integration.benchmarks.TsiLoadDriver}
+ *
+ * @author vitiwari
+ */
+public class TsiLoadDriver {
+
+    private static final String API_TOKEN = "load-test-token";
+    private static final int EVENT_POOL_SIZE = 1000;
+    private static final long SEED = 42l;
+
+    public static void main(String[] args) throws Exception {
+        int totalEvents = Integer.getInteger("events", 100000);
+        int batchSize = Integer.getInteger("batchSize", 100);
+        String threadCounts = System.getProperty("threadCounts", "1,2,5,10,20");
+
+        List<TSIEvent> pool = createEvents(EVENT_POOL_SIZE);
+        InMemoryMetricsRegistry metrics = Boolean.getBoolean("metrics") ? new InMemoryMetricsRegistry() : null;
+        Metrics.setRegistry(metrics);
+        try (FakeTsiEndpoint endpoint = new FakeTsiEndpoint(API_TOKEN)) {
+            endpoint.setLatency(FakeTsiEndpoint.logNormalLatency(Long.getLong("medianLatencyMs", 20l),
+                    Double.parseDouble(System.getProperty("latencySigma", "0.5"))));
+            endpoint.setRejectionRate(Double.parseDouble(System.getProperty("rejectionRate", "0")));
+            endpoint.setTooManyRequestsRate(Double.parseDouble(System.getProperty("tooManyRequestsRate", "0")));
+            endpoint.setServerErrorRate(Double.parseDouble(System.getProperty("serverErrorRate", "0")));
+            endpoint.start();
+
+            Configuration configuration = new Configuration();
+            configuration.setTsiEventEndpoint(endpoint.getEndpoint());
+            configuration.setTsiApiToken(API_TOKEN);
+            configuration.setRetryConfig(Integer.getInteger("retryConfig", 2));
+            configuration.setWaitMsBeforeRetry(Integer.getInteger("waitMsBeforeRetry", 100));
+
+            System.out.println(String.format("%8s %12s %10s %10s %10s %10s", "threads", "events/sec", "p50 ms", "p99 ms", "failed", "rejected"));
+            for (String threadCount : threadCounts.split(",")) {
+                long rejectedBefore = endpoint.getRejectedCount();
+                Run run = run(Integer.parseInt(threadCount.trim()), totalEvents, batchSize, pool, configuration);
+                System.out.println(String.format("%8d %12.0f %10.1f %10.1f %10d %10d", run.threads, run.eventsPerSecond(),
+                        run.percentileMs(0.50), run.percentileMs(0.99), run.failedBatches, endpoint.getRejectedCount() - rejectedBefore));
+            }
+            if (metrics != null) {
+                System.out.print(metrics.report());
+            }
+        }
+    }
+
+    private static List<TSIEvent> createEvents(int count) throws Exception {
+        TemplateFixtures fixtures = new TemplateFixtures(ARServerForm.INCIDENT_FORM);
+        RemedyEntryEventAdapter adapter = fixtures.createAdapter();
+        List<TSIEvent> events = new ArrayList<>(count);
+        for (Entry entry : fixtures.createEntries(count, SEED)) {
+            TSIEvent event = adapter.convertEntryToEvent(fixtures.getTemplate(), entry);
+            event.setEntryId(entry.getEntryId());
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static Run run(int threads, int totalEvents, int batchSize, List<TSIEvent> pool, Configuration configuration) throws Exception {
+        int batches = (totalEvents + batchSize - 1) / batchSize;
+        long[] latencies = new long[batches];
+        AtomicInteger nextBatch = new AtomicInteger();
+        AtomicLong failedBatches = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                int batch;
+                while ((batch = nextBatch.getAndIncrement()) < batches) {
+                    int from = (batch * batchSize) % pool.size();
+                    int size = Math.min(batchSize, totalEvents - batch * batchSize);
+                    List<TSIEvent> events = slice(pool, from, size);
+                    long sent = System.nanoTime();
+                    try {
+                        Result result = new CallableBulkEventHttpClient(events, configuration).call();
+                        if (result == null || result.getAccepted() == null) {
+                            failedBatches.incrementAndGet();
+                        }
+                    } catch (TsiAuthenticationFailedException e) {
+                        failedBatches.incrementAndGet();
+                    }
+                    latencies[batch] = System.nanoTime() - sent;
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Run(threads, totalEvents, elapsed, latencies, failedBatches.get());
+    }
+
+    // the pool is reused cyclically, a batch may wrap around its end
+    private static List<TSIEvent> slice(List<TSIEvent> pool, int from, int size) {
+        List<TSIEvent> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(pool.get((from + i) % pool.size()));
+        }
+        return events;
+    }
+
+    private static class Run {
+
+        private final int threads;
+        private final int events;
+        private final long elapsedNanos;
+        private final long[] latencies;
+        private final long failedBatches;
+
+        Run(int threads, int events, long elapsedNanos, long[] latencies, long failedBatches) {
+            this.threads = threads;
+            this.events = events;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies.clone();
+            this.failedBatches = failedBatches;
+            Arrays.sort(this.latencies);
+        }
+
+        double eventsPerSecond() {
+            return events / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        double percentileMs(double percentile) {
+            int index = Math.max(0, (int) Math.ceil(percentile * latencies.length) - 1);
+            return latencies[index] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+import java.util.List;
+
+import com.bmc.arsys.api.ARException;
+import com.bmc.arsys.api.ARServerUser;
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.Field;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.arsys.api.QualifierInfo;
+import com.bmc.arsys.api.SortInfo;
+import com.bmc.arsys.api.StatusInfo;
+
+/**
+ * This interface defines the calls made to the AR Server by the
+ * {@link RemedyReader}. The methods have the semantics of the same methods of
+ * {@link ARServerUser}, it allows to read from another source than a live AR
+ * Server, ex a stand-in server in the benchmarks.
+ *
+ * @author vitiwari
+ */
+public interface ARServerContext {
+
+    void login() throws ARException;
+
+    void logout();
+
+    /**
+     * Reads the entries matching the qualification.
+     *
+     * @param formName name of the form
+     * @param qualification entries to read
+     * @param firstRetrieve index of the first entry to read
+     * @param maxRetrieve maximum no of entries to read
+     * @param sortList order of the entries
+     * @param fieldIds fields to read
+     * @param useLocale true to use the locale of the user
+     * @param nMatches receives the total no of matching entries
+     * @return entries
+     * @throws ARException if the AR Server returns an error
+     */
+    List<Entry> getListEntryObjects(String formName, QualifierInfo qualification, int firstRetrieve, int maxRetrieve,
+            List<SortInfo> sortList, int[] fieldIds, boolean useLocale, OutputInteger nMatches) throws ARException;
+
+    /**
+     * Reads the entries with the given ids.
+     *
+     * @param formName name of the form
+     * @param entryIds ids of the entries
+     * @param fieldIds fields to read
+     * @return entries
+     * @throws ARException if the AR Server returns an error
+     */
+    List<Entry> getListEntryObjects(String formName, List<String> entryIds, int[] fieldIds) throws ARException;
+
+    List<Field> getListFieldObjects(String formName) throws ARException;
+
+    /**
+     * @return warnings and notes of the last call
+     */
+    List<StatusInfo> getLastStatus();
+
+    void setLastStatus(List<StatusInfo> statusList);
+}
@@ -0,0 +1,71 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+import java.util.List;
+
+import com.bmc.arsys.api.ARException;
+import com.bmc.arsys.api.ARServerUser;
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.Field;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.arsys.api.QualifierInfo;
+import com.bmc.arsys.api.SortInfo;
+import com.bmc.arsys.api.StatusInfo;
+
+/**
+ * This is the {@link ARServerContext} of a live AR Server, it delegates all the
+ * calls to an {@link ARServerUser}.
+ *
+ * @author vitiwari
+ */
+public class ARServerUserContext implements ARServerContext {
+
+    private final ARServerUser arServerUser;
+
+    public ARServerUserContext(ARServerUser arServerUser) {
+        this.arServerUser = arServerUser;
+    }
+
+    @Override
+    public void login() throws ARException {
+        arServerUser.login();
+    }
+
+    @Override
+    public void logout() {
+        arServerUser.logout();
+    }
+
+    @Override
+    public List<Entry> getListEntryObjects(String formName, QualifierInfo qualification, int firstRetrieve, int maxRetrieve,
+            List<SortInfo> sortList, int[] fieldIds, boolean useLocale, OutputInteger nMatches) throws ARException {
+        return arServerUser.getListEntryObjects(formName, qualification, firstRetrieve, maxRetrieve, sortList, fieldIds, useLocale, nMatches);
+    }
+
+    @Override
+    public List<Entry> getListEntryObjects(String formName, List<String> entryIds, int[] fieldIds) throws ARException {
+        return arServerUser.getListEntryObjects(formName, entryIds, fieldIds);
+    }
+
+    @Override
+    public List<Field> getListFieldObjects(String formName) throws ARException {
+        return arServerUser.getListFieldObjects(formName);
+    }
+
+    @Override
+    public List<StatusInfo> getLastStatus() {
+        return arServerUser.getLastStatus();
+    }
+
+    @Override
+    public void setLastStatus(List<StatusInfo> statusList) {
+        arServerUser.setLastStatus(statusList);
+    }
+
+    /**
+     * @return the wrapped {@link ARServerUser}, ex to make calls which are not
+     * part of {@link ARServerContext}
+     */
+    public ARServerUser getARServerUser() {
+        return arServerUser;
+    }
+}
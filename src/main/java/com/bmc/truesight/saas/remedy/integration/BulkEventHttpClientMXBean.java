@@ -0,0 +1,38 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+/**
+ * Management interface of the bulk event http clients of an ingestion
+ * service. The clients are created per batch, the attributes sum up all of
+ * them. The retry settings are read by every attempt, so they can be changed
+ * while the ingestion runs.
+ *
+ * @author vitiwari
+ */
+public interface BulkEventHttpClientMXBean {
+
+    long getRequestCount();
+
+    double getRoundTripMeanMs();
+
+    double getRoundTripP99Ms();
+
+    long getRetryCount();
+
+    long getBytesSent();
+
+    long getEventsSent();
+
+    long getEventsAccepted();
+
+    long getEventsRejected();
+
+    long getEventsFailed();
+
+    int getRetryConfig();
+
+    void setRetryConfig(int retryConfig);
+
+    int getWaitMsBeforeRetry();
+
+    void setWaitMsBeforeRetry(int waitMsBeforeRetry);
+}
@@ -0,0 +1,59 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+/**
+ * Management interface of a long-lived ingestion service: batches sent,
+ * batch and event rates, threads and queue of the executor, and limit of the
+ * adaptive concurrency. The thread count can be changed while the service
+ * runs.
+ *
+ * @author vitiwari
+ */
+public interface EventIngestionServiceMXBean {
+
+    long getCompletedBatches();
+
+    long getFailedBatches();
+
+    long getCompletedEvents();
+
+    /**
+     * @return moving rate of the batches completed per second
+     */
+    double getBatchRate();
+
+    /**
+     * @return moving rate of the events completed per second
+     */
+    double getEventRate();
+
+    int getActiveThreads();
+
+    int getQueuedBatches();
+
+    /**
+     * @return no of threads sending batches, with adaptive concurrency the
+     * maximum no of batches in flight
+     */
+    int getThreadCount();
+
+    /**
+     * Resizes the executor. With adaptive concurrency, the maximum limit of
+     * the batches in flight is changed along, the current limit is capped to
+     * it.
+     *
+     * @param threadCount no of threads sending batches, at least 1
+     */
+    void setThreadCount(int threadCount);
+
+    /**
+     * @return current limit of the batches in flight, the thread count when
+     * adaptive concurrency is disabled
+     */
+    int getConcurrencyLimit();
+
+    /**
+     * @return no of batches in flight, the active threads when adaptive
+     * concurrency is disabled
+     */
+    int getInFlightBatches();
+}
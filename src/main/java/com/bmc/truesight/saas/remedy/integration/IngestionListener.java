@@ -0,0 +1,35 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+
+/**
+ * This interface receives the outcome of every batch sent to TSI as soon as
+ * the batch completes, so that callers can checkpoint, alert or persist the
+ * results while the ingestion is still running. Batch results are always
+ * delivered from the thread which invoked the ingestion, one batch at a time.
+ *
+ * @author vitiwari
+ */
+public interface IngestionListener {
+
+    /**
+     * Called once for every completed batch.
+     *
+     * @param batchResult {@link BatchResult} with the indexes of the accepted
+     * and error items already shifted to the position of the event in the run
+     */
+    void onBatchComplete(BatchResult batchResult);
+
+    /**
+     * Called for the events which were dropped before sending, because their
+     * size exceeds the allowed limit. Only the ingestion pipeline reports
+     * invalid events, from its converter threads but never concurrently, by
+     * default they are ignored.
+     *
+     * @param invalidEvent {@link InvalidEvent} dropped before sending
+     */
+    default void onInvalidEvent(InvalidEvent invalidEvent) {
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+/**
+ * Management interface of a running ingestion pipeline: progress of the
+ * reader stage against the no of matching records, read rate and depth of the
+ * queues between the stages. The chunk size can be lowered while the
+ * pipeline runs, for instance to relieve the AR Server.
+ *
+ * @author vitiwari
+ */
+public interface IngestionPipelineMXBean {
+
+    int getTotalRecords();
+
+    int getRecordsRead();
+
+    /**
+     * @return share of the matching records read so far, from 0 to 100
+     */
+    double getProgressPercent();
+
+    /**
+     * @return moving rate of the records read per second
+     */
+    double getReadRate();
+
+    int getEventsConverted();
+
+    int getInvalidEventCount();
+
+    long getCoalescedCount();
+
+    int getEntryQueueSize();
+
+    int getEntryQueueCapacity();
+
+    int getBatchQueueSize();
+
+    int getBatchQueueCapacity();
+
+    long getMemoryBudgetUsedBytes();
+
+    long getMemoryBudgetPeakBytes();
+
+    /**
+     * @return maximum lag in milliseconds of the events of the latest batch
+     * accepted by TSI, from the Last_Modified_Date of their ticket, 0 without
+     * a freshness tracker
+     */
+    long getCurrentMaxLagMs();
+
+    /**
+     * @return 99th percentile of the lag in milliseconds of the events
+     * accepted by TSI, 0 without a freshness tracker
+     */
+    long getLagP99Ms();
+
+    /**
+     * @return no of records requested per AR Server call
+     */
+    int getChunkSize();
+
+    /**
+     * Changes the no of records requested by the next AR Server calls. The
+     * chunk size can only be lowered below the one the run started with, a
+     * larger chunk could exceed the maximum no of entries returned by the
+     * server and skip records.
+     *
+     * @param chunkSize no of records per call
+     */
+    void setChunkSize(int chunkSize);
+}
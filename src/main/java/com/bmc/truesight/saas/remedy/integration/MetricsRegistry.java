@@ -0,0 +1,34 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
+
+/**
+ * This interface receives the counters and latencies of the ingestion stages:
+ * AR fetch, conversion, size check, serialization, HTTP round trip, retries,
+ * bytes sent, accepted and rejected events. It is called concurrently from
+ * the reader, converter and sender threads on the hot path, implementations
+ * must be thread safe and cheap. The registry in use is set with
+ * {@link com.bmc.truesight.saas.remedy.integration.util.Metrics#setRegistry(MetricsRegistry)},
+ * nothing is recorded by default.
+ *
+ * @author vitiwari
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Adds to a counter.
+     *
+     * @param metric counter {@link Metric}
+     * @param delta value added
+     */
+    void increment(Metric metric, long delta);
+
+    /**
+     * Records a latency.
+     *
+     * @param metric timer {@link Metric}
+     * @param nanos latency in nanoseconds
+     */
+    void recordNanos(Metric metric, long nanos);
+
+}
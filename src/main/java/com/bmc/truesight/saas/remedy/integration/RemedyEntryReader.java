@@ -0,0 +1,81 @@
+package com.bmc.truesight.saas.remedy.integration;
+
+import java.util.List;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.RemedyEventResponse;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.beans.Watermark;
+import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedException;
+
+/**
+ * This interface extends {@link RemedyReader} with the methods which read the
+ * raw {@link Entry} objects and convert them separately, so that reading and
+ * conversion can run in separate stages, ex in the ingestion pipeline or the
+ * incremental sync.
+ *
+ * @author vitiwari
+ *
+ */
+public interface RemedyEntryReader extends RemedyReader {
+
+    /**
+     * This method reads a no of Entries(defined by parameter startFrom and
+     * chunkSize) from ARServer like
+     * {@link #readRemedyTickets(ARServerContext, ARServerForm, Template, int, int, OutputInteger, RemedyEntryEventAdapter)},
+     * but returns the raw {@link Entry} objects without converting them.
+     *
+     * @param arServerContext An instance of ARServerContext
+     * @param formName It can be {@link ARServerForm} enum value
+     * @param template It is an instance of {@link Template}
+     * @param startFrom This parameter defines the offset of the records reading
+     * @param chunkSize This parameter defines the no of records returned in
+     * this call.
+     * @param recordsCount This is an Instance of {@link OutputInteger}, Which
+     * will hold total the no of records matching.
+     * @return {@link List} of {@link Entry}
+     * @throws RemedyReadFailedException Throws RemedyReadFailedException in
+     * case of failure
+     */
+    List<Entry> readRemedyEntries(ARServerContext arServerContext, ARServerForm formName, Template template, int startFrom,
+            int chunkSize, OutputInteger recordsCount) throws RemedyReadFailedException;
+
+    /**
+     * This method reads the next Entries modified after the watermark, for an
+     * incremental sync. Entries are sorted by Last_Modified_Date (field 6) and
+     * entry id (field 1), so the watermark taken from the last entry returned
+     * is the starting point of the next call. The startDateTime/endDateTime
+     * window of the configuration is not applied, the status conditions are.
+     *
+     * @param arServerContext An instance of ARServerContext
+     * @param formName It can be {@link ARServerForm} enum value
+     * @param template It is an instance of {@link Template}
+     * @param watermark {@link Watermark} of the last entry already sent
+     * @param chunkSize This parameter defines the no of records returned in
+     * this call.
+     * @param recordsCount This is an Instance of {@link OutputInteger}, Which
+     * will hold total the no of records modified after the watermark.
+     * @return {@link List} of {@link Entry}, in watermark order
+     * @throws RemedyReadFailedException Throws RemedyReadFailedException in
+     * case of failure
+     */
+    List<Entry> readRemedyEntriesSince(ARServerContext arServerContext, ARServerForm formName, Template template, Watermark watermark,
+            int chunkSize, OutputInteger recordsCount) throws RemedyReadFailedException;
+
+    /**
+     * This method converts the {@link Entry} objects into {@link TSIEvent}
+     * objects and separates the events exceeding the allowed size.
+     *
+     * @param template It is an instance of {@link Template}
+     * @param entryList list of {@link Entry} read from ARServer
+     * @param adapter This is an instance of {@link RemedyEntryEventAdapter}
+     * @return RemedyEventResponse Returns the valid and invalid events
+     * @throws RemedyReadFailedException Throws RemedyReadFailedException if
+     * the adapter is missing
+     */
+    RemedyEventResponse convertEntries(Template template, List<Entry> entryList, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException;
+
+}
@@ -16,7 +16,9 @@ import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedExcep
 
 /**
  * This interface defines the methods required for reading Remedy Entries as TSI
- * events .
+ * events . The reads go through an {@link ARServerContext}, every method also
+ * accepts an {@link ARServerUser}, which is wrapped in an
+ * {@link ARServerUserContext}.
  *
  * @author vitiwari
  *
@@ -24,7 +26,7 @@ import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedExcep
 public interface RemedyReader {
 
     /**
-     * Creates an instance of {@link ARServerUser}, Which is required in all
+     * Creates an instance of {@link ARServerContext}, Which is required in all
      * other methods (ex login, Read Remedy Tickets etc) .
      *
      * @param hostName Remedy host name
@@ -32,30 +34,58 @@ public interface RemedyReader {
      * to specifically assign)
      * @param userName Remedy Server userId
      * @param password Remedy Server password
+     * @return {@link ARServerContext} {@link ARServerContext} Instance
+     */
+    ARServerContext createServerContext(String hostName, Integer port, String userName, String password);
+
+    /**
+     * Creates an instance of {@link ARServerUser} for a live AR Server.
+     *
+     * @param hostName Remedy host name
+     * @param port Remedy port ( Not required keep it as null if you don't want
+     * to specifically assign)
+     * @param userName Remedy Server userId
+     * @param password Remedy Server password
      * @return {@link ARServerUser} {@link ARServerUser} Instance
      */
-    ARServerUser createARServerContext(String hostName, Integer port, String userName, String password);
+    default ARServerUser createARServerContext(String hostName, Integer port, String userName, String password) {
+        ARServerUser arServerUser = new ARServerUser();
+        arServerUser.setServer(hostName);
+        if (port != null) {
+            arServerUser.setPort(port);
+        }
+        arServerUser.setUser(userName);
+        arServerUser.setPassword(password);
+        return arServerUser;
+    }
 
     /**
-     * This function logins {@link ARServerUser}, it is required to login before
-     * calling readRemedyTickets
+     * This function logins {@link ARServerContext}, it is required to login
+     * before calling readRemedyTickets
      *
-     * @param arServerContext Instance of {@link ARServerUser}
+     * @param arServerContext Instance of {@link ARServerContext}
      * @return true Returns true in case of successful login
      * @throws RemedyLoginFailedException In case of unsuccessful login throws
      * exception
      */
-    boolean login(ARServerUser arServerContext) throws RemedyLoginFailedException;
+    boolean login(ARServerContext arServerContext) throws RemedyLoginFailedException;
+
+    /**
+     * Same as {@link #login(ARServerContext)} for an {@link ARServerUser}.
+     */
+    default boolean login(ARServerUser arServerContext) throws RemedyLoginFailedException {
+        return login(new ARServerUserContext(arServerContext));
+    }
 
     /**
      * This method reads a no of Entries(defined by parameter startFrom and
-     * chunkSize) from ARServer. Ensure that {@link ARServerUser} is logged in
-     * before this call. After first call of this method {@link OutputInteger}
-     * instance in parameter will hold the total no of records based on the
-     * configuration provided in the template. This can be used to properly
-     * batch the request.
+     * chunkSize) from ARServer. Ensure that {@link ARServerContext} is logged
+     * in before this call. After first call of this method
+     * {@link OutputInteger} instance in parameter will hold the total no of
+     * records based on the configuration provided in the template. This can be
+     * used to properly batch the request.
      *
-     * @param arServerContext An instance of ARServerUser
+     * @param arServerContext An instance of ARServerContext
      * @param formName It can be {@link ARServerForm} enum value
      * @param template It is an instance of {@link Template}, recieved from
      * TemplateParser
@@ -72,43 +102,76 @@ public interface RemedyReader {
      * @throws RemedyReadFailedException Throws RemedyReadFailedException in
      * case of failure
      */
-    RemedyEventResponse readRemedyTickets(ARServerUser arServerContext, ARServerForm formName, Template template, int startFrom,
+    RemedyEventResponse readRemedyTickets(ARServerContext arServerContext, ARServerForm formName, Template template, int startFrom,
             int chunkSize, OutputInteger recordsCount, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException;
 
+    /**
+     * Same as
+     * {@link #readRemedyTickets(ARServerContext, ARServerForm, Template, int, int, OutputInteger, RemedyEntryEventAdapter)}
+     * for an {@link ARServerUser}.
+     */
+    default RemedyEventResponse readRemedyTickets(ARServerUser arServerContext, ARServerForm formName, Template template, int startFrom,
+            int chunkSize, OutputInteger recordsCount, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException {
+        return readRemedyTickets(new ARServerUserContext(arServerContext), formName, template, startFrom, chunkSize, recordsCount, adapter);
+    }
+
     /**
      * This method returns a boolean value suggesting if the messages contained
      * any warning about exceeding max record request limit.
      *
-     * @param arServerContext instance of {@link ARServerUser} returned after
+     * @param arServerContext instance of {@link ARServerContext} returned after
      * login
      * @return true/false
      */
-    public boolean exceededMaxServerEntries(ARServerUser arServerContext);
+    boolean exceededMaxServerEntries(ARServerContext arServerContext);
+
+    /**
+     * Same as {@link #exceededMaxServerEntries(ARServerContext)} for an
+     * {@link ARServerUser}.
+     */
+    default boolean exceededMaxServerEntries(ARServerUser arServerContext) {
+        return exceededMaxServerEntries(new ARServerUserContext(arServerContext));
+    }
 
     /**
-     * This method logout the {@link ARServerUser} from the ARServer. Make sure
-     * you call this method to logout the user, once you are done with reading
-     * Remedy Tickets.
+     * This method logout the {@link ARServerContext} from the ARServer. Make
+     * sure you call this method to logout the user, once you are done with
+     * reading Remedy Tickets.
      *
-     * @param arServerContext {@link ARServerUser} instance.
+     * @param arServerContext {@link ARServerContext} instance.
+     */
+    void logout(ARServerContext arServerContext);
+
+    /**
+     * Same as {@link #logout(ARServerContext)} for an {@link ARServerUser}.
      */
-    void logout(ARServerUser arServerContext);
+    default void logout(ARServerUser arServerContext) {
+        logout(new ARServerUserContext(arServerContext));
+    }
 
     /**
-     * This method gets the fieldId Field map for {@link ARServerUser} from the
-     * ARServer.
+     * This method gets the fieldId Field map for {@link ARServerContext} from
+     * the ARServer.
      *
-     * @param user {@link ARServerUser} instance.
+     * @param user {@link ARServerContext} instance.
      * @param form ARServerForm instance
      * @throws RemedyReadFailedException throws exception
      * @return Map Returns FieldId field Map 
      */
-    Map<Integer, Field> getFieldsMap(ARServerUser user, ARServerForm form) throws RemedyReadFailedException;
+    Map<Integer, Field> getFieldsMap(ARServerContext user, ARServerForm form) throws RemedyReadFailedException;
+
+    /**
+     * Same as {@link #getFieldsMap(ARServerContext, ARServerForm)} for an
+     * {@link ARServerUser}.
+     */
+    default Map<Integer, Field> getFieldsMap(ARServerUser user, ARServerForm form) throws RemedyReadFailedException {
+        return getFieldsMap(new ARServerUserContext(user), form);
+    }
 
     /**
      * This method gets List of valid/invalid Events for the list of entry Ids
      *
-     * @param arServerContext ARServerUser instance
+     * @param arServerContext ARServerContext instance
      * @param formName Incident or change formName
      * @param template template object
      * @param ids list of Entry ids
@@ -116,7 +179,17 @@ public interface RemedyReader {
      * @return RemedyEventResponse Returns the result
      * @throws RemedyReadFailedException exception
      */
-    RemedyEventResponse readRemedyTicketsWithId(ARServerUser arServerContext, ARServerForm formName, Template template,
+    RemedyEventResponse readRemedyTicketsWithId(ARServerContext arServerContext, ARServerForm formName, Template template,
             List<String> ids, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException;
 
+    /**
+     * Same as
+     * {@link #readRemedyTicketsWithId(ARServerContext, ARServerForm, Template, List, RemedyEntryEventAdapter)}
+     * for an {@link ARServerUser}.
+     */
+    default RemedyEventResponse readRemedyTicketsWithId(ARServerUser arServerContext, ARServerForm formName, Template template,
+            List<String> ids, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException {
+        return readRemedyTicketsWithId(new ARServerUserContext(arServerContext), formName, template, ids, adapter);
+    }
+
 }
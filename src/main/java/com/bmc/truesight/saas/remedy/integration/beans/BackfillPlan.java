@@ -0,0 +1,66 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * This is a pojo class for the slices of a backfill over a time range, it is
+ * persisted as the backfill checkpoint.
+ *
+ * @author vitiwari
+ */
+public class BackfillPlan {
+
+    private long start;
+    private long end;
+    private List<BackfillSlice> slices = new ArrayList<>();
+
+    public BackfillPlan() {
+
+    }
+
+    public BackfillPlan(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public void setEnd(long end) {
+        this.end = end;
+    }
+
+    public List<BackfillSlice> getSlices() {
+        return slices;
+    }
+
+    public void setSlices(List<BackfillSlice> slices) {
+        this.slices = slices;
+    }
+
+    /**
+     * @return no of slices not completed yet
+     */
+    @JsonIgnore
+    public int getPendingSliceCount() {
+        int pending = 0;
+        for (BackfillSlice slice : slices) {
+            if (!slice.isCompleted()) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+}
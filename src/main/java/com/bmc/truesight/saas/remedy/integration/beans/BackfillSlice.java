@@ -0,0 +1,77 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+/**
+ * This is a pojo class for one time slice of a backfill. The bounds are in
+ * seconds and both inclusive, like the startDateTime/endDateTime window of
+ * the {@link Configuration}. The offset of the next chunk to read is kept so
+ * that an interrupted slice resumes where it stopped.
+ *
+ * @author vitiwari
+ */
+public class BackfillSlice {
+
+    private long start;
+    private long end;
+    private int expectedCount;
+    private int nextOffset;
+    private int sent;
+    private boolean completed;
+
+    public BackfillSlice() {
+
+    }
+
+    public BackfillSlice(long start, long end, int expectedCount) {
+        this.start = start;
+        this.end = end;
+        this.expectedCount = expectedCount;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public void setEnd(long end) {
+        this.end = end;
+    }
+
+    public int getExpectedCount() {
+        return expectedCount;
+    }
+
+    public void setExpectedCount(int expectedCount) {
+        this.expectedCount = expectedCount;
+    }
+
+    public int getNextOffset() {
+        return nextOffset;
+    }
+
+    public void setNextOffset(int nextOffset) {
+        this.nextOffset = nextOffset;
+    }
+
+    public int getSent() {
+        return sent;
+    }
+
+    public void setSent(int sent) {
+        this.sent = sent;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+}
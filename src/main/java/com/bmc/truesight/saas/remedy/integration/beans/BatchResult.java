@@ -0,0 +1,116 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+import java.util.List;
+
+/**
+ * This is a pojo class which carries the outcome of one batch to an
+ * {@link com.bmc.truesight.saas.remedy.integration.IngestionListener
+ * IngestionListener}. The indexes in the {@link Result} are absolute, ie
+ * relative to the list of events passed to the ingestion.
+ *
+ * @author vitiwari
+ */
+public class BatchResult {
+
+    private final int startIndex;
+    private final int taskSize;
+    private final Result result;
+    private final List<String> entryIds;
+    private final List<TSIEvent> events;
+
+    public BatchResult(int startIndex, int taskSize, Result result, List<String> entryIds) {
+        this(startIndex, taskSize, result, entryIds, null);
+    }
+
+    public BatchResult(int startIndex, int taskSize, Result result, List<String> entryIds, List<TSIEvent> events) {
+        this.startIndex = startIndex;
+        this.taskSize = taskSize;
+        this.result = result;
+        this.entryIds = entryIds;
+        this.events = events;
+    }
+
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    public int getTaskSize() {
+        return taskSize;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * @return true if TSI answered for the batch, ie every event of the batch
+     * was accepted or rejected by TSI, even if all of them were rejected.
+     * False if the batch could not be sent
+     */
+    public boolean isAcknowledged() {
+        return result != null && !result.isNotSent();
+    }
+
+    /**
+     * @return Remedy entry ids of the events of the batch, in batch order
+     */
+    public List<String> getEntryIds() {
+        return entryIds;
+    }
+
+    /**
+     * Returns the Remedy entry id of an event of this batch.
+     *
+     * @param index absolute index of the event
+     * @return entry id or null if it is not known
+     */
+    public String getEntryId(int index) {
+        int position = index - startIndex;
+        if (entryIds == null || position < 0 || position >= entryIds.size()) {
+            return null;
+        }
+        return entryIds.get(position);
+    }
+
+    /**
+     * Moves the batch by offset positions, ex when the events of several
+     * ingestion calls are reported as one run. The indexes of the result are
+     * shifted in place.
+     *
+     * @param offset no of events reported before this ingestion call
+     * @return {@link BatchResult} with the shifted start index
+     */
+    public BatchResult shift(int offset) {
+        if (offset == 0) {
+            return this;
+        }
+        if (result != null && result.getAccepted() != null) {
+            result.getAccepted().forEach(accepted -> accepted.setIndex(accepted.getIndex() + offset));
+        }
+        if (result != null && result.getErrors() != null) {
+            result.getErrors().forEach(error -> error.setIndex(error.getIndex() + offset));
+        }
+        return new BatchResult(startIndex + offset, taskSize, result, entryIds, events);
+    }
+
+    /**
+     * @return events of the batch, in batch order, or null if not known
+     */
+    public List<TSIEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * Returns an event of this batch.
+     *
+     * @param index absolute index of the event
+     * @return {@link TSIEvent} or null if it is not known
+     */
+    public TSIEvent getEvent(int index) {
+        int position = index - startIndex;
+        if (events == null || position < 0 || position >= events.size()) {
+            return null;
+        }
+        return events.get(position);
+    }
+}
@@ -0,0 +1,219 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+/**
+ * This is a pojo class for the result of a dry run, the size and duration of
+ * an ingestion extrapolated from its first chunk. The durations are in
+ * milliseconds, the sizes in bytes.
+ *
+ * @author vitiwari
+ */
+public class CapacityEstimate {
+
+    private int recordsCount;
+    private int chunkSize;
+    private int threadCount;
+    private int sampledEntries;
+    private int sampledEvents;
+    private int sampledOversizeEvents;
+    private double meanEventBytes;
+    private long maxEventBytes;
+    private double fetchMsPerChunk;
+    private double conversionMsPerEntry;
+    private double serializationMsPerEvent;
+    // -1 when the TSI endpoint was not probed or did not answer
+    private double tsiLatencyMs = -1;
+    private long estimatedEvents;
+    private long estimatedBytes;
+    private long estimatedChunks;
+    private long estimatedBatches;
+    private int eventsPerBatch;
+    private long readMs;
+    private long conversionMs;
+    private long sendMs;
+    private long estimatedDurationMs;
+
+    public int getRecordsCount() {
+        return recordsCount;
+    }
+
+    public void setRecordsCount(int recordsCount) {
+        this.recordsCount = recordsCount;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getSampledEntries() {
+        return sampledEntries;
+    }
+
+    public void setSampledEntries(int sampledEntries) {
+        this.sampledEntries = sampledEntries;
+    }
+
+    public int getSampledEvents() {
+        return sampledEvents;
+    }
+
+    public void setSampledEvents(int sampledEvents) {
+        this.sampledEvents = sampledEvents;
+    }
+
+    public int getSampledOversizeEvents() {
+        return sampledOversizeEvents;
+    }
+
+    public void setSampledOversizeEvents(int sampledOversizeEvents) {
+        this.sampledOversizeEvents = sampledOversizeEvents;
+    }
+
+    public double getMeanEventBytes() {
+        return meanEventBytes;
+    }
+
+    public void setMeanEventBytes(double meanEventBytes) {
+        this.meanEventBytes = meanEventBytes;
+    }
+
+    public long getMaxEventBytes() {
+        return maxEventBytes;
+    }
+
+    public void setMaxEventBytes(long maxEventBytes) {
+        this.maxEventBytes = maxEventBytes;
+    }
+
+    public double getFetchMsPerChunk() {
+        return fetchMsPerChunk;
+    }
+
+    public void setFetchMsPerChunk(double fetchMsPerChunk) {
+        this.fetchMsPerChunk = fetchMsPerChunk;
+    }
+
+    public double getConversionMsPerEntry() {
+        return conversionMsPerEntry;
+    }
+
+    public void setConversionMsPerEntry(double conversionMsPerEntry) {
+        this.conversionMsPerEntry = conversionMsPerEntry;
+    }
+
+    public double getSerializationMsPerEvent() {
+        return serializationMsPerEvent;
+    }
+
+    public void setSerializationMsPerEvent(double serializationMsPerEvent) {
+        this.serializationMsPerEvent = serializationMsPerEvent;
+    }
+
+    public double getTsiLatencyMs() {
+        return tsiLatencyMs;
+    }
+
+    public void setTsiLatencyMs(double tsiLatencyMs) {
+        this.tsiLatencyMs = tsiLatencyMs;
+    }
+
+    public long getEstimatedEvents() {
+        return estimatedEvents;
+    }
+
+    public void setEstimatedEvents(long estimatedEvents) {
+        this.estimatedEvents = estimatedEvents;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public void setEstimatedBytes(long estimatedBytes) {
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public long getEstimatedChunks() {
+        return estimatedChunks;
+    }
+
+    public void setEstimatedChunks(long estimatedChunks) {
+        this.estimatedChunks = estimatedChunks;
+    }
+
+    public long getEstimatedBatches() {
+        return estimatedBatches;
+    }
+
+    public void setEstimatedBatches(long estimatedBatches) {
+        this.estimatedBatches = estimatedBatches;
+    }
+
+    public int getEventsPerBatch() {
+        return eventsPerBatch;
+    }
+
+    public void setEventsPerBatch(int eventsPerBatch) {
+        this.eventsPerBatch = eventsPerBatch;
+    }
+
+    public long getReadMs() {
+        return readMs;
+    }
+
+    public void setReadMs(long readMs) {
+        this.readMs = readMs;
+    }
+
+    public long getConversionMs() {
+        return conversionMs;
+    }
+
+    public void setConversionMs(long conversionMs) {
+        this.conversionMs = conversionMs;
+    }
+
+    /**
+     * @return time of the send stage, only the serialization of the events if
+     * the TSI endpoint was not probed
+     */
+    public long getSendMs() {
+        return sendMs;
+    }
+
+    public void setSendMs(long sendMs) {
+        this.sendMs = sendMs;
+    }
+
+    /**
+     * @return estimated wall-clock time of the ingestion, the slowest of the
+     * read, conversion and send stages as they run concurrently
+     */
+    public long getEstimatedDurationMs() {
+        return estimatedDurationMs;
+    }
+
+    public void setEstimatedDurationMs(long estimatedDurationMs) {
+        this.estimatedDurationMs = estimatedDurationMs;
+    }
+
+    @Override
+    public String toString() {
+        return "CapacityEstimate [recordsCount=" + recordsCount + ", chunkSize=" + chunkSize + ", threadCount=" + threadCount
+                + ", estimatedEvents=" + estimatedEvents + ", estimatedBytes=" + estimatedBytes + ", estimatedChunks=" + estimatedChunks
+                + ", estimatedBatches=" + estimatedBatches + ", eventsPerBatch=" + eventsPerBatch + ", readMs=" + readMs
+                + ", conversionMs=" + conversionMs + ", sendMs=" + sendMs + ", estimatedDurationMs=" + estimatedDurationMs
+                + ", tsiLatencyMs=" + tsiLatencyMs + "]";
+    }
+}
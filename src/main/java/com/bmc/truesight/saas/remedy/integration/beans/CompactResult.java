@@ -0,0 +1,182 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is a memory efficient aggregate of the batch {@link Result}s of an
+ * ingestion run. Accepted events are kept as bits of a {@link BitSet} and
+ * errors as primitive index arrays with interned messages, instead of one
+ * {@link Accepted} / {@link Error} object per event. The counts are available
+ * in constant time and the {@link Result} shape is produced on demand by
+ * {@link #toResult()}.
+ *
+ * @author vitiwari
+ */
+public class CompactResult {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final boolean retainAcceptedIds;
+    private final BitSet accepted = new BitSet();
+    private String[] acceptedIds = new String[0];
+    private int acceptedCount;
+
+    private int[] errorIndexes = new int[INITIAL_CAPACITY];
+    private int[] errorMessageIds = new int[INITIAL_CAPACITY];
+    private int errorCount;
+    private final List<String> messages = new ArrayList<>();
+    private final Map<String, Integer> messageIds = new HashMap<>();
+
+    private int sent;
+    private int batchCount;
+    private int successCount;
+    private int failureCount;
+    private int partialCount;
+
+    /**
+     * Creates a result keeping only the indexes of the accepted events, not
+     * their TSI ids.
+     */
+    public CompactResult() {
+        this(false);
+    }
+
+    /**
+     * @param retainAcceptedIds true to keep the TSI id of every accepted
+     * event, false to keep only their indexes
+     */
+    public CompactResult(boolean retainAcceptedIds) {
+        this.retainAcceptedIds = retainAcceptedIds;
+    }
+
+    /**
+     * Merges the result of one batch, the indexes in the batch result are
+     * relative to the batch and are shifted by startIndex.
+     *
+     * @param batchResult {@link Result} returned by TSI for the batch
+     * @param startIndex index of the first event of the batch in the run
+     */
+    public synchronized void addBatch(Result batchResult, int startIndex) {
+        batchCount++;
+        if (batchResult == null) {
+            return;
+        }
+        if (batchResult.getSuccess() == Success.TRUE) {
+            successCount++;
+        } else if (batchResult.getSuccess() == Success.FALSE) {
+            failureCount++;
+        } else if (batchResult.getSuccess() == Success.PARTIAL) {
+            partialCount++;
+        }
+        if (batchResult.getAccepted() != null) {
+            for (Accepted item : batchResult.getAccepted()) {
+                addAccepted(startIndex + item.getIndex(), item.getId());
+            }
+        }
+        if (batchResult.getErrors() != null) {
+            for (Error item : batchResult.getErrors()) {
+                addError(startIndex + item.getIndex(), item.getMessage());
+            }
+        }
+        sent += batchResult.getSent();
+    }
+
+    private void addAccepted(int index, String id) {
+        if (!accepted.get(index)) {
+            accepted.set(index);
+            acceptedCount++;
+        }
+        if (retainAcceptedIds) {
+            if (index >= acceptedIds.length) {
+                acceptedIds = Arrays.copyOf(acceptedIds, Math.max(index + 1, acceptedIds.length * 2));
+            }
+            acceptedIds[index] = id;
+        }
+    }
+
+    private void addError(int index, String message) {
+        if (errorCount == errorIndexes.length) {
+            errorIndexes = Arrays.copyOf(errorIndexes, errorCount * 2);
+            errorMessageIds = Arrays.copyOf(errorMessageIds, errorCount * 2);
+        }
+        Integer messageId = messageIds.get(message);
+        if (messageId == null) {
+            messageId = messages.size();
+            messages.add(message);
+            messageIds.put(message, messageId);
+        }
+        errorIndexes[errorCount] = index;
+        errorMessageIds[errorCount] = messageId;
+        errorCount++;
+    }
+
+    public synchronized int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public synchronized int getErrorCount() {
+        return errorCount;
+    }
+
+    public synchronized int getSent() {
+        return sent;
+    }
+
+    public synchronized int getBatchCount() {
+        return batchCount;
+    }
+
+    public synchronized boolean isAccepted(int index) {
+        return accepted.get(index);
+    }
+
+    /**
+     * @return the overall status of the run, computed from the batch statuses
+     */
+    public synchronized Success getSuccess() {
+        if (partialCount > 0 || (failureCount > 0 && successCount > 0)) {
+            return Success.PARTIAL;
+        } else if (failureCount > 0) {
+            return Success.FALSE;
+        } else if (successCount > 0) {
+            return Success.TRUE;
+        }
+        return Success.FALSE;
+    }
+
+    /**
+     * Builds the {@link Result} representation, the accepted and error lists
+     * are ordered by index.
+     *
+     * @return {@link Result}
+     */
+    public synchronized Result toResult() {
+        Result result = new Result();
+        result.setSent(sent);
+        if (batchCount > 0) {
+            result.setSuccess(getSuccess());
+        }
+        if (acceptedCount > 0) {
+            List<Accepted> acceptedList = new ArrayList<>(acceptedCount);
+            for (int index = accepted.nextSetBit(0); index >= 0; index = accepted.nextSetBit(index + 1)) {
+                String id = retainAcceptedIds && index < acceptedIds.length ? acceptedIds[index] : null;
+                acceptedList.add(new Accepted(index, id));
+            }
+            result.setAccepted(acceptedList);
+        }
+        if (errorCount > 0) {
+            List<Error> errorList = new ArrayList<>(errorCount);
+            for (int i = 0; i < errorCount; i++) {
+                errorList.add(new Error(errorIndexes[i], messages.get(errorMessageIds[i])));
+            }
+            errorList.sort((first, second) -> Integer.compare(first.getIndex(), second.getIndex()));
+            result.setErrors(errorList);
+        }
+        return result;
+    }
+}
@@ -31,6 +31,15 @@ public class Configuration {
     private List<Integer> queryStatusList;
     private Integer retryConfig;
     private Integer waitMsBeforeRetry;
+    private Boolean adaptiveConcurrency;
+    private Integer maxThreadCount;
+    private Integer maxBatchBytes;
+    private Integer maxBatchEvents;
+    private Integer lingerMs;
+    private Integer memoryBudgetMb;
+    private Boolean incrementalSync;
+    private Integer coalesceWindowMs;
+    private Boolean jmxEnabled;
 
     public Date getEndDateTime() {
         return endDateTime;
@@ -152,4 +161,76 @@ public class Configuration {
 		this.retryChunkSize = retryChunkSize;
 	}
 
+    public Boolean getAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public void setAdaptiveConcurrency(Boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public Integer getMaxThreadCount() {
+        return maxThreadCount;
+    }
+
+    public void setMaxThreadCount(Integer maxThreadCount) {
+        this.maxThreadCount = maxThreadCount;
+    }
+
+    public Integer getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public void setMaxBatchBytes(Integer maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    public Integer getMaxBatchEvents() {
+        return maxBatchEvents;
+    }
+
+    public void setMaxBatchEvents(Integer maxBatchEvents) {
+        this.maxBatchEvents = maxBatchEvents;
+    }
+
+    public Integer getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(Integer lingerMs) {
+        this.lingerMs = lingerMs;
+    }
+
+    public Integer getMemoryBudgetMb() {
+        return memoryBudgetMb;
+    }
+
+    public void setMemoryBudgetMb(Integer memoryBudgetMb) {
+        this.memoryBudgetMb = memoryBudgetMb;
+    }
+
+    public Boolean getIncrementalSync() {
+        return incrementalSync;
+    }
+
+    public void setIncrementalSync(Boolean incrementalSync) {
+        this.incrementalSync = incrementalSync;
+    }
+
+    public Integer getCoalesceWindowMs() {
+        return coalesceWindowMs;
+    }
+
+    public void setCoalesceWindowMs(Integer coalesceWindowMs) {
+        this.coalesceWindowMs = coalesceWindowMs;
+    }
+
+    public Boolean getJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    public void setJmxEnabled(Boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
 }
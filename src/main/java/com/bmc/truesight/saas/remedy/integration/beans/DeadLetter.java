@@ -0,0 +1,95 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+/**
+ * This is a pojo class for one record of the
+ * {@link com.bmc.truesight.saas.remedy.integration.impl.DeadLetterStore
+ * DeadLetterStore}, ie an event which could not be ingested along with the
+ * reason.
+ *
+ * @author vitiwari
+ */
+public class DeadLetter {
+
+    private String entryId;
+    private DeadLetterReason reason;
+    private String message;
+    private long eventSize;
+    private String maxSizePropertyName;
+    private long propertySize;
+    private long failedAt;
+    private TSIEvent event;
+
+    public DeadLetter() {
+
+    }
+
+    public DeadLetter(String entryId, DeadLetterReason reason) {
+        this.entryId = entryId;
+        this.reason = reason;
+        this.failedAt = System.currentTimeMillis();
+    }
+
+    public String getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(String entryId) {
+        this.entryId = entryId;
+    }
+
+    public DeadLetterReason getReason() {
+        return reason;
+    }
+
+    public void setReason(DeadLetterReason reason) {
+        this.reason = reason;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getEventSize() {
+        return eventSize;
+    }
+
+    public void setEventSize(long eventSize) {
+        this.eventSize = eventSize;
+    }
+
+    public String getMaxSizePropertyName() {
+        return maxSizePropertyName;
+    }
+
+    public void setMaxSizePropertyName(String maxSizePropertyName) {
+        this.maxSizePropertyName = maxSizePropertyName;
+    }
+
+    public long getPropertySize() {
+        return propertySize;
+    }
+
+    public void setPropertySize(long propertySize) {
+        this.propertySize = propertySize;
+    }
+
+    public long getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(long failedAt) {
+        this.failedAt = failedAt;
+    }
+
+    public TSIEvent getEvent() {
+        return event;
+    }
+
+    public void setEvent(TSIEvent event) {
+        this.event = event;
+    }
+}
@@ -0,0 +1,17 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+/**
+ * Reason of a {@link DeadLetter} record.
+ *
+ * @author vitiwari
+ */
+public enum DeadLetterReason {
+    // the event exceeds the allowed size and was not sent
+    OVERSIZED,
+    // the event was sent and rejected by TSI
+    REJECTED,
+    // the event could not be sent to TSI, ex timeouts or server errors after the retries
+    NOT_SENT,
+    // the entry was re-driven successfully, it supersedes the earlier records
+    RESOLVED
+}
@@ -1,5 +1,6 @@
 package com.bmc.truesight.saas.remedy.integration.beans;
 
+import java.util.List;
 import java.util.concurrent.Future;
 
 public class IndexedResult {
@@ -7,6 +8,7 @@ public class IndexedResult {
     private Future<Result> result;
     private int startIndex;
     private int taskSize;
+    private List<TSIEvent> events;
 
     public Future<Result> getResult() {
         return result;
@@ -32,4 +34,12 @@ public class IndexedResult {
         this.taskSize = taskSize;
     }
 
+    public List<TSIEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<TSIEvent> events) {
+        this.events = events;
+    }
+
 }
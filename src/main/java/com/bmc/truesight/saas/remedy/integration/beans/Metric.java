@@ -0,0 +1,45 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+/**
+ * Metrics recorded by the stages of an ingestion. A timer is recorded in
+ * nanoseconds into a latency histogram, a counter is a plain sum.
+ *
+ * @author vitiwari
+ */
+public enum Metric {
+    // one getListEntryObjects call, per chunk
+    AR_FETCH(true),
+    AR_ENTRIES_READ(false),
+    AR_RETRIES(false),
+    // conversion of one entry into an event
+    CONVERSION(true),
+    // size check of one event
+    SIZE_CHECK(true),
+    // events dropped before sending because of their size
+    EVENTS_TOO_LARGE(false),
+    // serialization of one bulk request, or of one event appended to a batch
+    SERIALIZATION(true),
+    // one bulk request, from sending it to receiving the response status
+    HTTP_ROUND_TRIP(true),
+    HTTP_RETRIES(false),
+    // payload bytes, counted for every attempt
+    BYTES_SENT(false),
+    EVENTS_SENT(false),
+    EVENTS_ACCEPTED(false),
+    // events rejected by TSI in a successful request
+    EVENTS_REJECTED(false),
+    // events of the batches which failed even after the retries
+    EVENTS_FAILED(false),
+    // from the Last_Modified_Date of a ticket to the acceptance of its event
+    FRESHNESS_LAG(true);
+
+    private final boolean timer;
+
+    private Metric(boolean timer) {
+        this.timer = timer;
+    }
+
+    public boolean isTimer() {
+        return timer;
+    }
+}
@@ -2,6 +2,7 @@ package com.bmc.truesight.saas.remedy.integration.beans;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
@@ -13,6 +14,9 @@ public class Result {
     private Success success;
     private List<Error> errors;
     private List<Accepted> accepted;
+    // true on the result made up for a batch which could not be sent, it is not a part of the TSI response
+    @JsonIgnore
+    private boolean notSent;
 
     public Result() {
 
@@ -56,4 +60,18 @@ public class Result {
     public void setAccepted(List<Accepted> accepted) {
         this.accepted = accepted;
     }
+
+    /**
+     * @return true if the batch could not be sent to TSI, the errors of such
+     * a result carry the cause of the failure and not a TSI rejection
+     */
+    @JsonIgnore
+    public boolean isNotSent() {
+        return notSent;
+    }
+
+    @JsonIgnore
+    public void setNotSent(boolean notSent) {
+        this.notSent = notSent;
+    }
 }
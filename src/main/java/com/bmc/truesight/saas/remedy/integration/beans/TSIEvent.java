@@ -5,6 +5,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class TSIEvent {
 
     private String title;
@@ -17,6 +19,12 @@ public class TSIEvent {
     private String eventClass;
     private EventSource source;
     //private EventSource sender;
+    // Remedy entry id of the ticket, it is not a part of the TSI event payload
+    @JsonIgnore
+    private String entryId;
+    // id of the EventSpool record of the event, it is not a part of the TSI event payload
+    @JsonIgnore
+    private Long spoolRecordId;
 
     public TSIEvent(TSIEvent payload) {
         this.setTitle(payload.getTitle());
@@ -105,6 +113,26 @@ public class TSIEvent {
         this.message = message;
     }
 
+    @JsonIgnore
+    public String getEntryId() {
+        return entryId;
+    }
+
+    @JsonIgnore
+    public void setEntryId(String entryId) {
+        this.entryId = entryId;
+    }
+
+    @JsonIgnore
+    public Long getSpoolRecordId() {
+        return spoolRecordId;
+    }
+
+    @JsonIgnore
+    public void setSpoolRecordId(Long spoolRecordId) {
+        this.spoolRecordId = spoolRecordId;
+    }
+
     public String getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,45 @@
+package com.bmc.truesight.saas.remedy.integration.beans;
+
+/**
+ * This is a pojo class for the high-water mark of an incremental sync, ie the
+ * Last_Modified_Date (in seconds, as stored by Remedy) and the entry id of the
+ * last entry which was sent. Entries are read in this order, the entry id
+ * breaks the ties between entries modified in the same second.
+ *
+ * @author vitiwari
+ */
+public class Watermark {
+
+    private long lastModified;
+    private String entryId;
+
+    public Watermark() {
+
+    }
+
+    public Watermark(long lastModified, String entryId) {
+        this.lastModified = lastModified;
+        this.entryId = entryId;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(String entryId) {
+        this.entryId = entryId;
+    }
+
+    @Override
+    public String toString() {
+        return lastModified + "/" + entryId;
+    }
+}
@@ -0,0 +1,142 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+
+/**
+ * This class limits the number of bulk event batches in flight to TSI using an
+ * AIMD (additive increase, multiplicative decrease) algorithm. The limit grows
+ * by roughly one batch per round trip while the observed latency stays close
+ * to the best latency seen so far, and it is cut down on errors or latency
+ * spikes.
+ *
+ * @author vitiwari
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private final int minLimit;
+    private int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long baselineNanos = Long.MAX_VALUE;
+    private int samplesSinceBaselineReset;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Blocks until the number of batches in flight is below the current limit.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the permit taken by {@link #acquire()} and adjusts the limit
+     * based on the outcome of the batch.
+     *
+     * @param latencyNanos round trip time of the batch, including retries
+     * @param failed true if the batch failed or was rejected by TSI
+     */
+    public void release(long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            double previous = limit;
+            if (failed) {
+                limit = Math.max(minLimit, limit * Constants.ADAPTIVE_CONCURRENCY_BACKOFF_RATIO);
+            } else {
+                updateBaseline(latencyNanos);
+                if (latencyNanos > baselineNanos * Constants.ADAPTIVE_CONCURRENCY_LATENCY_TOLERANCE) {
+                    limit = Math.max(minLimit, limit * Constants.ADAPTIVE_CONCURRENCY_SPIKE_RATIO);
+                } else {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+            if ((int) previous != (int) limit) {
+                log.debug("Concurrency limit changed from {} to {}, latency {} ms, failed {}", new Object[]{(int) previous, (int) limit, TimeUnit.NANOSECONDS.toMillis(latencyNanos), failed});
+            }
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateBaseline(long latencyNanos) {
+        // The baseline is re-learned periodically so that a permanent change in
+        // the TSI latency is not treated as a spike forever.
+        if (++samplesSinceBaselineReset >= Constants.ADAPTIVE_CONCURRENCY_BASELINE_WINDOW) {
+            samplesSinceBaselineReset = 0;
+            baselineNanos = latencyNanos;
+        } else if (latencyNanos < baselineNanos) {
+            baselineNanos = latencyNanos;
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxLimit() {
+        lock.lock();
+        try {
+            return maxLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the maximum limit, the current limit is capped to it. Batches
+     * already in flight above the new limit are not interrupted.
+     *
+     * @param maxLimit new maximum no of batches in flight
+     */
+    public void setMaxLimit(int maxLimit) {
+        lock.lock();
+        try {
+            this.maxLimit = Math.max(minLimit, maxLimit);
+            limit = Math.min(limit, this.maxLimit);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.RemedyEntryReader;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.BackfillPlan;
+import com.bmc.truesight.saas.remedy.integration.beans.BackfillSlice;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.RemedyEventResponse;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.exception.BulkEventsIngestionFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.RemedyLoginFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.FileUtil;
+import com.bmc.truesight.saas.remedy.integration.util.NamedThreadFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class backfills a large startDateTime/endDateTime window as a set of
+ * smaller time slices. The range is split in halves until the no of matching
+ * tickets of every slice, learned from a cheap count query (one entry
+ * returned, only the total used), is below the target slice size. The slices
+ * run in parallel on a fixed pool, every worker with its own AR session. The
+ * first slice which fails cancels the others.
+ * <p>
+ * The plan and the progress of every slice are saved in a checkpoint file
+ * after each chunk whose batches were all acknowledged by TSI. Running the
+ * planner again with the same window skips the completed slices and resumes
+ * the others from their last acknowledged chunk. Events rejected by TSI do
+ * not stop the slice, they are reported to the listener.
+ *
+ * @author vitiwari
+ */
+public class BackfillPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(BackfillPlanner.class);
+
+    private final RemedyEntryReader reader;
+    private final ARServerContext arServerContext;
+    private final ARServerForm form;
+    private final Template template;
+    private final RemedyEntryEventAdapter adapter;
+    private final EventIngestionExecuterService ingestionService;
+    private final File checkpointFile;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private int targetSliceRecords = Constants.BACKFILL_DEFAULT_SLICE_RECORDS;
+    private int parallelism = Constants.BACKFILL_DEFAULT_PARALLELISM;
+    private BackfillPlan plan;
+
+    /**
+     * @param reader {@link RemedyEntryReader}
+     * @param arServerContext logged in {@link ARServerContext}, used for the
+     * planning. The workers log in with their own context.
+     * @param form {@link ARServerForm} to backfill
+     * @param template {@link Template}, its startDateTime/endDateTime is the
+     * range to backfill
+     * @param adapter {@link RemedyEntryEventAdapter} for the form
+     * @param ingestionService {@link EventIngestionExecuterService} sending the
+     * events, preferably a long-lived one
+     * @param checkpointFile file keeping the plan and the slice progress
+     */
+    public BackfillPlanner(RemedyEntryReader reader, ARServerContext arServerContext, ARServerForm form, Template template,
+            RemedyEntryEventAdapter adapter, EventIngestionExecuterService ingestionService, File checkpointFile) {
+        this.reader = reader;
+        this.arServerContext = arServerContext;
+        this.form = form;
+        this.template = template;
+        this.adapter = adapter;
+        this.ingestionService = ingestionService;
+        this.checkpointFile = checkpointFile;
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Returns the plan of the window, loaded from the checkpoint if it was
+     * made for the same window, else computed and saved.
+     *
+     * @return {@link BackfillPlan}
+     * @throws RemedyReadFailedException if counting fails or the checkpoint
+     * can not be read or written
+     */
+    public synchronized BackfillPlan plan() throws RemedyReadFailedException {
+        if (plan != null) {
+            return plan;
+        }
+        long start = template.getConfig().getStartDateTime().getTime() / 1000;
+        long end = template.getConfig().getEndDateTime().getTime() / 1000;
+        try {
+            if (checkpointFile.exists()) {
+                BackfillPlan saved = mapper.readValue(checkpointFile, BackfillPlan.class);
+                if (saved.getStart() == start && saved.getEnd() == end) {
+                    log.debug("Resuming the backfill plan {}, {} of {} slices pending", new Object[]{checkpointFile, saved.getPendingSliceCount(), saved.getSlices().size()});
+                    plan = saved;
+                    return plan;
+                }
+                log.debug("Backfill checkpoint {} was made for another window, planning again", checkpointFile);
+            }
+        } catch (IOException e) {
+            throw new RemedyReadFailedException("Reading the backfill checkpoint " + checkpointFile + " failed, " + e.getMessage());
+        }
+        BackfillPlan newPlan = new BackfillPlan(start, end);
+        split(newPlan, start, end, count(arServerContext, start, end));
+        plan = newPlan;
+        save();
+        log.debug("Backfill planned as {} slices", plan.getSlices().size());
+        return plan;
+    }
+
+    private void split(BackfillPlan newPlan, long start, long end, int count) throws RemedyReadFailedException {
+        if (count == 0) {
+            return;
+        }
+        if (count <= targetSliceRecords || end <= start) {
+            newPlan.getSlices().add(new BackfillSlice(start, end, count));
+            return;
+        }
+        // the bounds are inclusive, the second half starts one second after the first one ends
+        long middle = start + (end - start) / 2;
+        int firstCount = count(arServerContext, start, middle);
+        split(newPlan, start, middle, firstCount);
+        split(newPlan, middle + 1, end, Math.max(0, count - firstCount));
+    }
+
+    private int count(ARServerContext context, long start, long end) throws RemedyReadFailedException {
+        OutputInteger recordsCount = new OutputInteger();
+        reader.readRemedyEntries(context, form, sliceTemplate(start, end), 0, 1, recordsCount);
+        return recordsCount.intValue();
+    }
+
+    /**
+     * Runs the pending slices of the plan and sends their tickets. Batch
+     * results are delivered to the listener one at a time, the indexes count
+     * the events sent by this run across all the slices.
+     *
+     * @param listener {@link IngestionListener} receiving the batch results
+     * @return {@link BackfillPlan} with the progress of every slice
+     * @throws RemedyReadFailedException if reading a slice fails
+     * @throws BulkEventsIngestionFailedException if sending fails or a batch
+     * is not acknowledged by TSI
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public BackfillPlan run(IngestionListener listener) throws RemedyReadFailedException, BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        BackfillPlan current = plan();
+        ThreadLocal<ARServerContext> contexts = new ThreadLocal<>();
+        List<ARServerContext> openContexts = new ArrayList<>();
+        AtomicInteger nextIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory(Constants.BACKFILL_THREAD_NAME_PREFIX, true));
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(pool);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (BackfillSlice slice : current.getSlices()) {
+                if (slice.isCompleted()) {
+                    continue;
+                }
+                futures.add(completionService.submit(() -> {
+                    runSlice(slice, workerContext(contexts, openContexts), listener, nextIndex);
+                    return null;
+                }));
+            }
+            Exception failure = null;
+            for (int i = 0; i < futures.size() && failure == null; i++) {
+                try {
+                    completionService.take().get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    log.error("Backfill slice failed, cancelling the other slices, {}", failure.getMessage());
+                    futures.forEach(future -> future.cancel(true));
+                } catch (InterruptedException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new RemedyReadFailedException("Interrupted while waiting for the backfill slices");
+                }
+            }
+            if (failure instanceof TsiAuthenticationFailedException) {
+                throw (TsiAuthenticationFailedException) failure;
+            } else if (failure instanceof BulkEventsIngestionFailedException) {
+                throw (BulkEventsIngestionFailedException) failure;
+            } else if (failure instanceof RemedyReadFailedException) {
+                throw (RemedyReadFailedException) failure;
+            } else if (failure != null) {
+                throw new RemedyReadFailedException(failure.getMessage());
+            }
+        } finally {
+            pool.shutdownNow();
+            awaitTermination(pool);
+            synchronized (openContexts) {
+                openContexts.forEach(reader::logout);
+            }
+        }
+        log.debug("Backfill completed, {} slices", current.getSlices().size());
+        return current;
+    }
+
+    /**
+     * Waits for the cancelled slices to stop before their sessions are logged
+     * out.
+     */
+    private void awaitTermination(ExecutorService pool) {
+        try {
+            if (!pool.awaitTermination(Constants.INGESTION_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.error("Backfill slices did not stop within {} ms", Constants.INGESTION_DRAIN_TIMEOUT_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ARServerContext workerContext(ThreadLocal<ARServerContext> contexts, List<ARServerContext> openContexts) throws RemedyLoginFailedException {
+        ARServerContext context = contexts.get();
+        if (context == null) {
+            Configuration config = template.getConfig();
+            context = reader.createServerContext(config.getRemedyHostName(), config.getRemedyPort(), config.getRemedyUserName(), config.getRemedyPassword());
+            reader.login(context);
+            contexts.set(context);
+            synchronized (openContexts) {
+                openContexts.add(context);
+            }
+        }
+        return context;
+    }
+
+    private void runSlice(BackfillSlice slice, ARServerContext context, IngestionListener listener, AtomicInteger nextIndex) throws RemedyReadFailedException, BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        Template sliceTemplate = sliceTemplate(slice.getStart(), slice.getEnd());
+        Configuration config = sliceTemplate.getConfig();
+        int chunkSize = config.getChunkSize();
+        log.debug("Backfill slice {} - {} started at offset {}", new Object[]{new Date(slice.getStart() * 1000), new Date(slice.getEnd() * 1000), slice.getNextOffset()});
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RemedyReadFailedException("Backfill slice cancelled at offset " + slice.getNextOffset());
+            }
+            OutputInteger recordsCount = new OutputInteger();
+            RemedyEventResponse response = reader.readRemedyTickets(context, form, sliceTemplate, slice.getNextOffset(), chunkSize, recordsCount, adapter);
+            int read = response.getValidEventList().size() + response.getInvalidEventList().size();
+            if (!response.getInvalidEventList().isEmpty()) {
+                synchronized (listener) {
+                    for (InvalidEvent invalidEvent : response.getInvalidEventList()) {
+                        listener.onInvalidEvent(invalidEvent);
+                    }
+                }
+            }
+            if (!response.getValidEventList().isEmpty()) {
+                int base = nextIndex.getAndAdd(response.getValidEventList().size());
+                AtomicBoolean acknowledged = new AtomicBoolean(true);
+                ingestionService.ingestEvents(response.getValidEventList(), config, batchResult -> {
+                    if (!batchResult.isAcknowledged()) {
+                        acknowledged.set(false);
+                    }
+                    deliver(listener, batchResult.shift(base));
+                });
+                if (!acknowledged.get()) {
+                    // the chunk is read again when the backfill is resumed
+                    throw new BulkEventsIngestionFailedException("Batches of the backfill slice " + new Date(slice.getStart() * 1000) + " - " + new Date(slice.getEnd() * 1000)
+                            + " were not acknowledged by TSI, the slice stops at offset " + slice.getNextOffset());
+                }
+            }
+            boolean done = read == 0 || slice.getNextOffset() + read >= recordsCount.intValue()
+                    || (read < chunkSize && !reader.exceededMaxServerEntries(context));
+            synchronized (this) {
+                slice.setNextOffset(slice.getNextOffset() + read);
+                slice.setSent(slice.getSent() + response.getValidEventList().size());
+                slice.setCompleted(done);
+                save();
+            }
+            if (done) {
+                break;
+            }
+        }
+    }
+
+    private void deliver(IngestionListener listener, BatchResult batchResult) {
+        synchronized (listener) {
+            listener.onBatchComplete(batchResult);
+        }
+    }
+
+    private Template sliceTemplate(long start, long end) {
+        Configuration config = mapper.convertValue(template.getConfig(), Configuration.class);
+        config.setStartDateTime(new Date(start * 1000));
+        config.setEndDateTime(new Date(end * 1000));
+        Template sliceTemplate = new Template();
+        sliceTemplate.setConfig(config);
+        sliceTemplate.setEventDefinition(template.getEventDefinition());
+        sliceTemplate.setFieldDefinitionMap(template.getFieldDefinitionMap());
+        return sliceTemplate;
+    }
+
+    private void save() throws RemedyReadFailedException {
+        try {
+            FileUtil.writeAtomically(checkpointFile, mapper.writeValueAsBytes(plan));
+        } catch (IOException e) {
+            throw new RemedyReadFailedException("Saving the backfill checkpoint " + checkpointFile + " failed, " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param targetSliceRecords a range is split until its slices match at
+     * most this no of tickets
+     */
+    public void setTargetSliceRecords(int targetSliceRecords) {
+        this.targetSliceRecords = Math.max(1, targetSliceRecords);
+    }
+
+    /**
+     * @param parallelism no of slices read in parallel
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+}
@@ -0,0 +1,92 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import com.bmc.truesight.saas.remedy.integration.BulkEventHttpClientMXBean;
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
+import com.bmc.truesight.saas.remedy.integration.util.LatencyHistogram;
+
+/**
+ * {@link BulkEventHttpClientMXBean} reading the http metrics of an
+ * {@link InMemoryMetricsRegistry}. The retry settings are changed on the
+ * {@link Configuration} the clients are created with.
+ *
+ * @author vitiwari
+ */
+public class BulkEventHttpClientStats implements BulkEventHttpClientMXBean {
+
+    private final InMemoryMetricsRegistry registry;
+    private final Configuration configuration;
+
+    public BulkEventHttpClientStats(InMemoryMetricsRegistry registry, Configuration configuration) {
+        this.registry = registry;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return registry.getCount(Metric.HTTP_ROUND_TRIP);
+    }
+
+    @Override
+    public double getRoundTripMeanMs() {
+        return registry.getHistogram(Metric.HTTP_ROUND_TRIP).getMean() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getRoundTripP99Ms() {
+        LatencyHistogram roundTrip = registry.getHistogram(Metric.HTTP_ROUND_TRIP);
+        return roundTrip.getValueAtPercentile(99) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public long getRetryCount() {
+        return registry.getCount(Metric.HTTP_RETRIES);
+    }
+
+    @Override
+    public long getBytesSent() {
+        return registry.getCount(Metric.BYTES_SENT);
+    }
+
+    @Override
+    public long getEventsSent() {
+        return registry.getCount(Metric.EVENTS_SENT);
+    }
+
+    @Override
+    public long getEventsAccepted() {
+        return registry.getCount(Metric.EVENTS_ACCEPTED);
+    }
+
+    @Override
+    public long getEventsRejected() {
+        return registry.getCount(Metric.EVENTS_REJECTED);
+    }
+
+    @Override
+    public long getEventsFailed() {
+        return registry.getCount(Metric.EVENTS_FAILED);
+    }
+
+    @Override
+    public int getRetryConfig() {
+        return configuration.getRetryConfig();
+    }
+
+    @Override
+    public void setRetryConfig(int retryConfig) {
+        configuration.setRetryConfig(Math.max(0, retryConfig));
+    }
+
+    @Override
+    public int getWaitMsBeforeRetry() {
+        return configuration.getWaitMsBeforeRetry();
+    }
+
+    @Override
+    public void setWaitMsBeforeRetry(int waitMsBeforeRetry) {
+        configuration.setWaitMsBeforeRetry(Math.max(0, waitMsBeforeRetry));
+    }
+}
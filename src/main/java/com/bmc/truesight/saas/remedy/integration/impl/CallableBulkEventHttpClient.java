@@ -4,7 +4,6 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -13,7 +12,7 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +21,7 @@ import com.bmc.thirdparty.org.apache.commons.codec.binary.Base64;
 import com.bmc.truesight.saas.remedy.integration.BulkEventHttpClient;
 import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
 import com.bmc.truesight.saas.remedy.integration.beans.Error;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
 import com.bmc.truesight.saas.remedy.integration.beans.Result;
 import com.bmc.truesight.saas.remedy.integration.beans.Success;
 import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
@@ -29,6 +29,8 @@ import com.bmc.truesight.saas.remedy.integration.beans.TSIEventResponse;
 import com.bmc.truesight.saas.remedy.integration.exception.BulkEventsIngestionFailedException;
 import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
 import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.FlightRecorder;
+import com.bmc.truesight.saas.remedy.integration.util.Metrics;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -38,18 +40,30 @@ public class CallableBulkEventHttpClient implements Callable<Result>, BulkEventH
     private static final Logger LOG = LoggerFactory.getLogger(CallableBulkEventHttpClient.class);
 
     public CallableBulkEventHttpClient(List<TSIEvent> eventList, Configuration configuration) {
+        this(eventList, null, configuration);
+    }
+
+    /**
+     * @param eventList events of the batch
+     * @param payload json array of the events, already serialized, or null
+     * to serialize them when sending
+     * @param configuration {@link Configuration} of the template
+     */
+    public CallableBulkEventHttpClient(List<TSIEvent> eventList, byte[] payload, Configuration configuration) {
         this.eventList = eventList;
+        this.payload = payload;
         this.configuration = configuration;
     }
 
     private List<TSIEvent> eventList;
+    private byte[] payload;
     private Configuration configuration;
 
     @Override
     public Result call() throws TsiAuthenticationFailedException {
         Result result = null;
         try {
-            result = pushBulkEventsToTSI(eventList);
+            result = payload != null ? pushPayloadToTSI(eventList, payload) : pushBulkEventsToTSI(eventList);
         } catch (BulkEventsIngestionFailedException e) {
             result = new Result();
             List<Error> errorList = new ArrayList<>();
@@ -60,6 +74,8 @@ public class CallableBulkEventHttpClient implements Callable<Result>, BulkEventH
             result.setErrors(errorList);
             result.setSent(0);
             result.setSuccess(Success.FALSE);
+            result.setNotSent(true);
+            Metrics.increment(Metric.EVENTS_FAILED, eventList.size());
         }
         return result;
     }
@@ -86,6 +102,15 @@ public class CallableBulkEventHttpClient implements Callable<Result>, BulkEventH
         return resp;
     }
 
+    /**
+     * Keeps the interrupt flag of a cancelled batch and aborts its retries.
+     */
+    private BulkEventsIngestionFailedException interrupted(InterruptedException e) {
+        LOG.debug("Thread interrupted, giving up sending the events ......{}", e.getMessage());
+        Thread.currentThread().interrupt();
+        return new BulkEventsIngestionFailedException("Sending events to TSI was interrupted");
+    }
+
     public static String encodeBase64(final String encodeToken) {
         byte[] encoded = Base64.encodeBase64(encodeToken.getBytes());
         return new String(encoded);
@@ -96,44 +121,56 @@ public class CallableBulkEventHttpClient implements Callable<Result>, BulkEventH
         if (bulkEvents.size() <= 0) {
             throw new BulkEventsIngestionFailedException("Cannot send empty events list to TSI");
         }
+        // serialized once, the payload is the same for every attempt
+        byte[] payload;
+        try {
+            long start = System.nanoTime();
+            payload = new ObjectMapper().writeValueAsBytes(bulkEvents);
+            Metrics.recordSince(Metric.SERIALIZATION, start);
+        } catch (Exception e) {
+            LOG.debug("Can not Send events, There is an issue in creating http request data [{}]", e.getMessage());
+            throw new BulkEventsIngestionFailedException(e.getMessage());
+        }
+        return pushPayloadToTSI(bulkEvents, payload);
+    }
+
+    private Result pushPayloadToTSI(List<TSIEvent> bulkEvents, byte[] payload) throws BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
         Result result = null;
         HttpClient httpClient = null;
         boolean isSuccessful = false;
         int retryCount = 0;
-
-        ObjectMapper mapper = new ObjectMapper();
+        LOG.debug("Starting ingestion of {} events  to TSI with payload size as {} bytes", bulkEvents.size(), payload.length);
 
         while (!isSuccessful && retryCount <= this.configuration.getRetryConfig()) {
-            String jsonInString = null;
+            // a cancelled batch must not be retried, ex after another batch failed the authentication
+            if (Thread.currentThread().isInterrupted()) {
+                throw interrupted(new InterruptedException("Batch cancelled before attempt " + (retryCount + 1)));
+            }
             httpClient = HttpClientBuilder.create().build();
             HttpPost httpPost = new HttpPost(this.configuration.getTsiEventEndpoint());
             httpPost.addHeader("Authorization", "Basic " + encodeBase64("" + ":" + this.configuration.getTsiApiToken()));
             httpPost.addHeader("Content-Type", "application/json");
             httpPost.addHeader("accept", "application/json");
             httpPost.addHeader("User-Agent", "RemedyScript");
-            try {
-                jsonInString = mapper.writeValueAsString(bulkEvents);
-                Charset charsetD = Charset.forName("UTF-8");
-                StringEntity postingString = new StringEntity(jsonInString, charsetD);
-                LOG.debug("Starting ingestion of {} events  to TSI with payload size as {} bytes", bulkEvents.size(), jsonInString.getBytes("UTF-8").length);
-                httpPost.setEntity(postingString);
-
-            } catch (Exception e) {
-                LOG.debug("Can not Send events, There is an issue in creating http request data [{}]", e.getMessage());
-                throw new BulkEventsIngestionFailedException(e.getMessage());
-            }
+            httpPost.setEntity(new ByteArrayEntity(payload));
             HttpResponse response;
+            Object postEvent = FlightRecorder.TSI_POST.begin();
             try {
+                Metrics.increment(Metric.BYTES_SENT, payload.length);
+                long start = System.nanoTime();
                 response = httpClient.execute(httpPost);
+                Metrics.recordSince(Metric.HTTP_ROUND_TRIP, start);
             } catch (Exception e) {
+                FlightRecorder.TSI_POST.commit(postEvent, bulkEvents.size(), (long) payload.length, 0, retryCount);
                 LOG.debug("Sending Event resulted into an exception [{}]", e.getMessage());
                 if (retryCount < this.configuration.getRetryConfig()) {
                     retryCount++;
+                    Metrics.increment(Metric.HTTP_RETRIES, 1);
                     try {
                         LOG.debug("[Retry  {} ], Waiting for {} sec before trying again ......", retryCount, (this.configuration.getWaitMsBeforeRetry() / 1000));
                         Thread.sleep(this.configuration.getWaitMsBeforeRetry());
                     } catch (InterruptedException e1) {
-                        LOG.debug("Thread interrupted ......{}", e1.getMessage());
+                        throw interrupted(e1);
                     }
                     continue;
                 } else {
@@ -142,17 +179,19 @@ public class CallableBulkEventHttpClient implements Callable<Result>, BulkEventH
             }
 
             int statusCode = response.getStatusLine().getStatusCode();
+            FlightRecorder.TSI_POST.commit(postEvent, bulkEvents.size(), (long) payload.length, statusCode, retryCount);
             if (statusCode == Constants.UNAUTHORIZED_STATUS) {
                 throw new TsiAuthenticationFailedException("TSI authentication failed, please verify the API Token or API Endpoint");
             } else if (statusCode != Constants.EVENT_INGESTION_STATE_SUCCESS && statusCode != Constants.EVENT_INGESTION_STATE_ACCEPTED) {
                 if (retryCount < this.configuration.getRetryConfig()) {
                     retryCount++;
+                    Metrics.increment(Metric.HTTP_RETRIES, 1);
                     LOG.debug("Sending Event did not result in success, response status Code : {} , {}", new Object[]{response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase()});
                     try {
                         LOG.debug("[Retry  {} ], Waiting for {} sec before trying again ......", retryCount, (this.configuration.getWaitMsBeforeRetry() / 1000));
                         Thread.sleep(this.configuration.getWaitMsBeforeRetry());
                     } catch (InterruptedException e1) {
-                        LOG.debug("Thread interrupted ......{}", e1.getMessage());
+                        throw interrupted(e1);
                     }
                     continue;
                 } else {
@@ -174,8 +213,15 @@ public class CallableBulkEventHttpClient implements Callable<Result>, BulkEventH
                     if (eventResponse == null) {
                         LOG.debug("Event Response is null, returning result as Null");
                     }
-                    result = eventResponse.getResult();
-                    if (result.getAccepted() != null) {
+                    result = eventResponse != null ? eventResponse.getResult() : null;
+                    Metrics.increment(Metric.EVENTS_SENT, bulkEvents.size());
+                    if (result == null) {
+                        LOG.debug("Event Response has no result, returning result as Null");
+                    } else {
+                        Metrics.increment(Metric.EVENTS_ACCEPTED, result.getAccepted() != null ? result.getAccepted().size() : 0);
+                        Metrics.increment(Metric.EVENTS_REJECTED, result.getErrors() != null ? result.getErrors().size() : 0);
+                    }
+                    if (result != null && result.getAccepted() != null) {
                         LOG.debug("Response from event ingestion API Sent:{},successful:{},error:{}", result.getSent(), result.getAccepted() != null ? result.getAccepted().size() : 0, result.getErrors() != null ? result.getErrors().size() : 0);
                     }
                     isSuccessful = true;
@@ -0,0 +1,226 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.RemedyEntryReader;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.CapacityEstimate;
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.RemedyEventResponse;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedException;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class estimates the size and duration of an ingestion without sending
+ * anything to TSI. Only the first chunk is read: it gives the no of matching
+ * records, the fetch time of a chunk, the conversion cost of an entry and the
+ * serialized size of the events. The estimate extrapolates them to all the
+ * records, for the chunkSize and threadCount of the configuration and the
+ * batching of {@link EventBatchAccumulator}.
+ * <p>
+ * The stages of an {@link IngestionPipeline} run concurrently, so the
+ * estimated duration is the one of its slowest stage. The send stage is only
+ * known from the serialization cost unless the TSI endpoint is probed, which
+ * measures the round trip of a HEAD request on a new connection like the
+ * ones of the http clients. The probe does not include the upload of the
+ * payload nor the processing by TSI, the send time is a lower bound.
+ *
+ * @author vitiwari
+ */
+public class CapacityEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(CapacityEstimator.class);
+    // the brackets of the json array of a batch, and the comma between events
+    private static final int BATCH_OVERHEAD_BYTES = 2;
+    private static final int EVENT_SEPARATOR_BYTES = 1;
+
+    private final RemedyEntryReader reader;
+    private final ARServerContext arServerContext;
+    private final ARServerForm form;
+    private final Template template;
+    private final RemedyEntryEventAdapter adapter;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private boolean probeTsi;
+    private int readerThreads = Constants.PIPELINE_DEFAULT_READER_THREADS;
+    private int converterThreads = Constants.PIPELINE_DEFAULT_CONVERTER_THREADS;
+
+    /**
+     * @param reader {@link RemedyEntryReader}
+     * @param arServerContext logged in {@link ARServerContext}
+     * @param form {@link ARServerForm} to estimate
+     * @param template {@link Template} of the ingestion, its chunkSize and
+     * threadCount are the ones estimated
+     * @param adapter {@link RemedyEntryEventAdapter} for the form
+     */
+    public CapacityEstimator(RemedyEntryReader reader, ARServerContext arServerContext, ARServerForm form, Template template, RemedyEntryEventAdapter adapter) {
+        this.reader = reader;
+        this.arServerContext = arServerContext;
+        this.form = form;
+        this.template = template;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Probes the latency of the tsiEventEndpoint of the configuration, off by
+     * default.
+     *
+     * @param probeTsi true to send HEAD requests to the endpoint
+     */
+    public void setProbeTsi(boolean probeTsi) {
+        this.probeTsi = probeTsi;
+    }
+
+    /**
+     * @param readerThreads no of reader threads of the pipeline estimated
+     */
+    public void setReaderThreads(int readerThreads) {
+        this.readerThreads = Math.max(1, readerThreads);
+    }
+
+    /**
+     * @param converterThreads no of converter threads of the pipeline
+     * estimated
+     */
+    public void setConverterThreads(int converterThreads) {
+        this.converterThreads = Math.max(1, converterThreads);
+    }
+
+    /**
+     * Reads the first chunk and estimates the ingestion of all the matching
+     * records.
+     *
+     * @return {@link CapacityEstimate}
+     * @throws RemedyReadFailedException if reading the first chunk fails
+     */
+    public CapacityEstimate estimate() throws RemedyReadFailedException {
+        Configuration config = template.getConfig();
+        CapacityEstimate estimate = new CapacityEstimate();
+        estimate.setChunkSize(config.getChunkSize());
+        estimate.setThreadCount(config.getThreadCount());
+
+        OutputInteger recordsCount = new OutputInteger();
+        long start = System.nanoTime();
+        List<Entry> entries = reader.readRemedyEntries(arServerContext, form, template, 0, config.getChunkSize(), recordsCount);
+        long fetched = System.nanoTime();
+        RemedyEventResponse response = reader.convertEntries(template, entries, adapter);
+        long converted = System.nanoTime();
+        int records = Math.max(recordsCount.intValue(), entries.size());
+        estimate.setRecordsCount(records);
+        estimate.setSampledEntries(entries.size());
+        estimate.setSampledEvents(response.getValidEventList().size());
+        estimate.setSampledOversizeEvents(response.getInvalidEventList().size());
+        estimate.setFetchMsPerChunk(toMillis(fetched - start));
+        if (!entries.isEmpty()) {
+            estimate.setConversionMsPerEntry(toMillis(converted - fetched) / entries.size());
+        }
+        sampleEvents(response.getValidEventList(), estimate);
+        if (probeTsi) {
+            estimate.setTsiLatencyMs(probeLatency(config));
+        }
+        extrapolate(config, estimate);
+        log.debug("Dry run for {} from the first {} entries, {}", new Object[]{form, entries.size(), estimate});
+        return estimate;
+    }
+
+    private void sampleEvents(List<TSIEvent> events, CapacityEstimate estimate) {
+        long totalBytes = 0;
+        long maxBytes = 0;
+        long start = System.nanoTime();
+        for (TSIEvent event : events) {
+            try {
+                long bytes = mapper.writeValueAsBytes(event).length;
+                totalBytes += bytes;
+                maxBytes = Math.max(maxBytes, bytes);
+            } catch (JsonProcessingException e) {
+                log.error("Serializing an event of the sample failed, {}", e.getMessage());
+            }
+        }
+        if (!events.isEmpty()) {
+            estimate.setSerializationMsPerEvent(toMillis(System.nanoTime() - start) / events.size());
+            estimate.setMeanEventBytes(totalBytes / (double) events.size());
+        }
+        estimate.setMaxEventBytes(maxBytes);
+    }
+
+    /**
+     * @return mean round trip in milliseconds of the probes answered, -1 if
+     * none was
+     */
+    private double probeLatency(Configuration config) {
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(Constants.CAPACITY_PROBE_TIMEOUT_MS)
+                .setSocketTimeout(Constants.CAPACITY_PROBE_TIMEOUT_MS).build();
+        long totalNanos = 0;
+        int answered = 0;
+        for (int i = 0; i < Constants.CAPACITY_PROBE_COUNT; i++) {
+            // a new client per probe, the http clients open a new connection for every request
+            try (CloseableHttpClient httpClient = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build()) {
+                HttpHead httpHead = new HttpHead(config.getTsiEventEndpoint());
+                httpHead.addHeader("User-Agent", "RemedyScript");
+                long start = System.nanoTime();
+                HttpResponse response = httpClient.execute(httpHead);
+                totalNanos += System.nanoTime() - start;
+                answered++;
+                log.debug("TSI endpoint probe answered with status {}", response.getStatusLine().getStatusCode());
+            } catch (Exception e) {
+                log.error("Probing the TSI endpoint {} failed, {}", config.getTsiEventEndpoint(), e.getMessage());
+            }
+        }
+        return answered > 0 ? toMillis(totalNanos) / answered : -1;
+    }
+
+    private void extrapolate(Configuration config, CapacityEstimate estimate) {
+        int records = estimate.getRecordsCount();
+        int sampled = estimate.getSampledEntries();
+        double validRatio = sampled > 0 ? estimate.getSampledEvents() / (double) sampled : 0;
+        long events = Math.round(records * validRatio);
+        double eventBytes = estimate.getMeanEventBytes() + EVENT_SEPARATOR_BYTES;
+
+        EventBatchAccumulator batching = new EventBatchAccumulator(config);
+        int eventsPerBatch = batching.getMaxBatchEvents();
+        if (eventBytes > EVENT_SEPARATOR_BYTES) {
+            long byBytes = (long) ((batching.getMaxBatchBytes() - BATCH_OVERHEAD_BYTES) / eventBytes);
+            eventsPerBatch = (int) Math.max(1, Math.min(eventsPerBatch, byBytes));
+        }
+        batching.close();
+        long batches = ceilDiv(events, eventsPerBatch);
+        long chunks = ceilDiv(records, Math.max(1, config.getChunkSize()));
+
+        estimate.setEstimatedEvents(events);
+        estimate.setEventsPerBatch(eventsPerBatch);
+        estimate.setEstimatedBatches(batches);
+        estimate.setEstimatedChunks(chunks);
+        estimate.setEstimatedBytes(Math.round(events * eventBytes) + batches * BATCH_OVERHEAD_BYTES);
+
+        estimate.setReadMs(Math.round(chunks * estimate.getFetchMsPerChunk() / readerThreads));
+        estimate.setConversionMs(Math.round(records * estimate.getConversionMsPerEntry() / converterThreads));
+        double batchMs = eventsPerBatch * estimate.getSerializationMsPerEvent() + Math.max(0, estimate.getTsiLatencyMs());
+        estimate.setSendMs(Math.round(batches * batchMs / Math.max(1, config.getThreadCount())));
+        estimate.setEstimatedDurationMs(Math.max(estimate.getReadMs(), Math.max(estimate.getConversionMs(), estimate.getSendMs())));
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.Result;
+import com.bmc.truesight.saas.remedy.integration.beans.Success;
+
+/**
+ * {@link IngestionListener} which only keeps counters, its memory does not
+ * grow with the length of the run.
+ *
+ * @author vitiwari
+ */
+public class CountingResultSink implements IngestionListener {
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @Override
+    public void onBatchComplete(BatchResult batchResult) {
+        batches.increment();
+        Result result = batchResult.getResult();
+        if (result == null) {
+            failedBatches.increment();
+            return;
+        }
+        if (result.getSuccess() == Success.FALSE) {
+            failedBatches.increment();
+        }
+        sent.add(result.getSent());
+        if (result.getAccepted() != null) {
+            accepted.add(result.getAccepted().size());
+        }
+        if (result.getErrors() != null) {
+            errors.add(result.getErrors().size());
+        }
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+}
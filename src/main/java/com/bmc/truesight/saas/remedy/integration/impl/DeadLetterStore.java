@@ -0,0 +1,374 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.RemedyReader;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.Accepted;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.CompactResult;
+import com.bmc.truesight.saas.remedy.integration.beans.DeadLetter;
+import com.bmc.truesight.saas.remedy.integration.beans.DeadLetterReason;
+import com.bmc.truesight.saas.remedy.integration.beans.Error;
+import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.RemedyEventResponse;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.exception.BulkEventsIngestionFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class persists the events which could not be ingested, ie the events
+ * dropped as oversized, the events rejected by TSI and the events of the
+ * batches which could not be sent, as {@link DeadLetter}
+ * records in segmented NDJSON files. An in-memory index by Remedy entry id,
+ * rebuilt when the store is opened, points to the latest record of every
+ * unresolved entry.
+ * <p>
+ * The store is an {@link IngestionListener}, so it can be passed to an
+ * ingestion directly. Failed entries can be re-read and resubmitted in
+ * batches with
+ * {@link #redrive(RemedyReader, ARServerContext, ARServerForm, Template, RemedyEntryEventAdapter, EventIngestionExecuterService)},
+ * usually with a fixed template. Entries accepted later are marked resolved.
+ *
+ * @author vitiwari
+ */
+public class DeadLetterStore implements IngestionListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterStore.class);
+    private static final String SEGMENT_PREFIX = "deadletter-";
+    private static final String SEGMENT_SUFFIX = ".ndjson";
+
+    private final File directory;
+    private final long segmentBytes;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Location> index = new LinkedHashMap<>();
+    private int activeSegment;
+    private FileOutputStream activeStream;
+    private long activePosition;
+
+    private static class Location {
+
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    public DeadLetterStore(File directory) throws IOException {
+        this(directory, Constants.DEAD_LETTER_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens the store in the directory and rebuilds the index from the
+     * existing segments.
+     *
+     * @param directory store directory, created if missing
+     * @param segmentBytes size after which a new segment file is started
+     * @throws IOException if the directory or a segment can not be read
+     */
+    public DeadLetterStore(File directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Dead letter directory " + directory + " can not be created");
+        }
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        int[] segments = new int[files != null ? files.length : 0];
+        for (int i = 0; i < segments.length; i++) {
+            String name = files[i].getName();
+            segments[i] = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        }
+        Arrays.sort(segments);
+        for (int segment : segments) {
+            loadSegment(segment);
+        }
+        activeSegment = segments.length > 0 ? segments[segments.length - 1] : 1;
+        openActiveSegment();
+        log.debug("Dead letter store opened in {}, {} unresolved entries", directory, index.size());
+    }
+
+    private void loadSegment(int segment) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(segmentFile(segment)))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long offset = 0;
+            long position = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                try {
+                    DeadLetter letter = mapper.readValue(line.toByteArray(), DeadLetter.class);
+                    indexRecord(letter, new Location(segment, offset, line.size()));
+                } catch (IOException e) {
+                    log.debug("Skipping a corrupt dead letter record in segment {} at {}", segment, offset);
+                }
+                line.reset();
+                offset = position;
+            }
+        }
+    }
+
+    private void indexRecord(DeadLetter letter, Location location) {
+        if (letter.getEntryId() == null) {
+            return;
+        }
+        if (letter.getReason() == DeadLetterReason.RESOLVED) {
+            index.remove(letter.getEntryId());
+        } else {
+            // keep the insertion order of the latest failure
+            index.remove(letter.getEntryId());
+            index.put(letter.getEntryId(), location);
+        }
+    }
+
+    private File segmentFile(int segment) {
+        return new File(directory, SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    private void openActiveSegment() throws IOException {
+        File file = segmentFile(activeSegment);
+        activePosition = file.length();
+        activeStream = new FileOutputStream(file, true);
+    }
+
+    /**
+     * Stores an event which was dropped because of its size.
+     *
+     * @param invalidEvent {@link InvalidEvent} with the size details
+     * @throws IOException if the record can not be written
+     */
+    public synchronized void add(InvalidEvent invalidEvent) throws IOException {
+        DeadLetter letter = new DeadLetter(invalidEvent.getEntryId(), DeadLetterReason.OVERSIZED);
+        letter.setMessage(Constants.DEAD_LETTER_OVERSIZED_MESSAGE);
+        letter.setEvent(invalidEvent.getInvalidEvent());
+        letter.setEventSize(invalidEvent.getEventSize());
+        letter.setMaxSizePropertyName(invalidEvent.getMaxSizePropertyName());
+        letter.setPropertySize(invalidEvent.getPropertySize());
+        write(letter);
+    }
+
+    /**
+     * Stores an event which was rejected by TSI.
+     *
+     * @param event rejected {@link TSIEvent}, with its entry id
+     * @param message error message returned by TSI
+     * @throws IOException if the record can not be written
+     */
+    public synchronized void add(TSIEvent event, String message) throws IOException {
+        add(event, message, DeadLetterReason.REJECTED);
+    }
+
+    /**
+     * Stores an event which was rejected by TSI or could not be sent.
+     *
+     * @param event {@link TSIEvent}, with its entry id
+     * @param message error message returned by TSI or cause of the failure
+     * @param reason {@link DeadLetterReason#REJECTED} or
+     * {@link DeadLetterReason#NOT_SENT}
+     * @throws IOException if the record can not be written
+     */
+    public synchronized void add(TSIEvent event, String message, DeadLetterReason reason) throws IOException {
+        DeadLetter letter = new DeadLetter(event.getEntryId(), reason);
+        letter.setMessage(message);
+        letter.setEvent(event);
+        letter.setEventSize(mapper.writeValueAsBytes(event).length);
+        if (event.getProperties() != null) {
+            for (Map.Entry<String, String> property : event.getProperties().entrySet()) {
+                long size = property.getValue() != null ? utf8Length(property.getValue()) : 0;
+                if (size > letter.getPropertySize() || letter.getMaxSizePropertyName() == null) {
+                    letter.setMaxSizePropertyName(property.getKey());
+                    letter.setPropertySize(size);
+                }
+            }
+        }
+        write(letter);
+    }
+
+    /**
+     * Marks an entry resolved, its earlier records are ignored from now on.
+     *
+     * @param entryId Remedy entry id
+     * @return true if the entry was unresolved
+     * @throws IOException if the record can not be written
+     */
+    public synchronized boolean resolve(String entryId) throws IOException {
+        if (!index.containsKey(entryId)) {
+            return false;
+        }
+        write(new DeadLetter(entryId, DeadLetterReason.RESOLVED));
+        return true;
+    }
+
+    private void write(DeadLetter letter) throws IOException {
+        byte[] record = mapper.writeValueAsBytes(letter);
+        if (activePosition > 0 && activePosition + record.length + 1 > segmentBytes) {
+            activeStream.close();
+            activeSegment++;
+            openActiveSegment();
+        }
+        byte[] line = Arrays.copyOf(record, record.length + 1);
+        line[record.length] = '\n';
+        activeStream.write(line);
+        indexRecord(letter, new Location(activeSegment, activePosition, record.length));
+        activePosition += line.length;
+    }
+
+    private static long utf8Length(String value) {
+        try {
+            return value.getBytes("UTF-8").length;
+        } catch (UnsupportedEncodingException e) {
+            return value.length();
+        }
+    }
+
+    /**
+     * Reads the latest record of an unresolved entry.
+     *
+     * @param entryId Remedy entry id
+     * @return {@link DeadLetter} or null if the entry is not in the store
+     * @throws IOException if the record can not be read
+     */
+    public synchronized DeadLetter get(String entryId) throws IOException {
+        Location location = index.get(entryId);
+        if (location == null) {
+            return null;
+        }
+        activeStream.flush();
+        byte[] record = new byte[location.length];
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(location.segment), "r")) {
+            file.seek(location.offset);
+            file.readFully(record);
+        }
+        return mapper.readValue(record, DeadLetter.class);
+    }
+
+    /**
+     * @return entry ids of the unresolved entries, oldest failure first
+     */
+    public synchronized List<String> getEntryIds() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void onBatchComplete(BatchResult batchResult) {
+        if (batchResult.getResult() == null) {
+            return;
+        }
+        try {
+            if (batchResult.getResult().getAccepted() != null) {
+                for (Accepted accepted : batchResult.getResult().getAccepted()) {
+                    String entryId = batchResult.getEntryId(accepted.getIndex());
+                    if (entryId != null) {
+                        resolve(entryId);
+                    }
+                }
+            }
+            if (batchResult.getResult().getErrors() != null) {
+                // the errors of a batch which was not sent carry the cause of the failure, not a TSI rejection
+                DeadLetterReason reason = batchResult.isAcknowledged() ? DeadLetterReason.REJECTED : DeadLetterReason.NOT_SENT;
+                for (Error error : batchResult.getResult().getErrors()) {
+                    TSIEvent event = batchResult.getEvent(error.getIndex());
+                    if (event != null) {
+                        add(event, error.getMessage(), reason);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Writing to the dead letter store failed, {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void onInvalidEvent(InvalidEvent invalidEvent) {
+        try {
+            add(invalidEvent);
+        } catch (IOException e) {
+            log.error("Writing to the dead letter store failed, {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the unresolved entries again from Remedy, chunkSize ids at a time,
+     * converts them with the given (usually fixed) template and sends them to
+     * TSI. Accepted entries are resolved, entries which still fail get a new
+     * record. Entries which no longer exist in Remedy are left untouched.
+     *
+     * @param reader {@link RemedyReader}
+     * @param arServerContext logged in {@link ARServerContext}
+     * @param form {@link ARServerForm} of the entries
+     * @param template {@link Template} to convert the entries with
+     * @param adapter {@link RemedyEntryEventAdapter} for the form
+     * @param ingestionService {@link EventIngestionExecuterService}
+     * @return {@link CompactResult} of the events sent
+     * @throws RemedyReadFailedException if reading the entries fails
+     * @throws BulkEventsIngestionFailedException if sending fails
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public CompactResult redrive(RemedyReader reader, ARServerContext arServerContext, ARServerForm form, Template template,
+            RemedyEntryEventAdapter adapter, EventIngestionExecuterService ingestionService) throws RemedyReadFailedException, BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        List<String> entryIds = getEntryIds();
+        int chunkSize = template.getConfig().getChunkSize();
+        CompactResult compactResult = new CompactResult(false);
+        int sentBefore = 0;
+        log.debug("Re-driving {} dead letter entries", entryIds.size());
+        for (int start = 0; start < entryIds.size(); start += chunkSize) {
+            List<String> ids = entryIds.subList(start, Math.min(entryIds.size(), start + chunkSize));
+            RemedyEventResponse response = reader.readRemedyTicketsWithId(arServerContext, form, template, new ArrayList<>(ids), adapter);
+            for (InvalidEvent invalidEvent : response.getInvalidEventList()) {
+                onInvalidEvent(invalidEvent);
+            }
+            List<TSIEvent> events = response.getValidEventList();
+            if (events.isEmpty()) {
+                continue;
+            }
+            int base = sentBefore;
+            ingestionService.ingestEvents(events, template.getConfig(), batchResult -> {
+                onBatchComplete(batchResult);
+                compactResult.addBatch(batchResult.getResult(), base);
+            });
+            sentBefore += events.size();
+        }
+        log.debug("Re-drive completed, {} accepted, {} still unresolved", compactResult.getAcceptedCount(), size());
+        return compactResult;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        activeStream.close();
+    }
+}
@@ -0,0 +1,356 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.Metrics;
+import com.bmc.truesight.saas.remedy.integration.util.SizeEstimator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class sits between the reader and the sender and groups the events
+ * into batches close to the best request size. A batch is sealed when it
+ * reaches the maximum payload size in bytes, the maximum number of events, or
+ * when the oldest event of the batch has waited for the linger time. Events
+ * from different reader chunks are merged into the same batch, so chunk tails
+ * do not produce tiny trailing requests.
+ * <p>
+ * Producers call {@link #append(TSIEvent)}, which blocks when too many sealed
+ * batches are waiting. The sender calls {@link #nextBatch(long, TimeUnit)},
+ * takes the json payload built while appending with {@link #takePayload(List)}
+ * so that the events are serialized only once, and calls
+ * {@link #release(List)} once a batch is done. When a {@link MemoryBudget} is
+ * set, the estimated size of every event and its payload is reserved on
+ * append and released with the batch.
+ *
+ * @author vitiwari
+ */
+public class EventBatchAccumulator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBatchAccumulator.class);
+    // the brackets of the json array
+    private static final int BATCH_OVERHEAD_BYTES = 2;
+
+    private final long maxBatchBytes;
+    private final int maxBatchEvents;
+    private final long lingerNanos;
+    private final int maxSealedBatches;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private final Deque<List<TSIEvent>> sealed = new ArrayDeque<>();
+    private final Map<List<TSIEvent>, Long> reservedBytes = new IdentityHashMap<>();
+    private final Map<List<TSIEvent>, byte[]> payloads = new IdentityHashMap<>();
+    private MemoryBudget memoryBudget;
+    private List<TSIEvent> current = new ArrayList<>();
+    private long currentBytes = BATCH_OVERHEAD_BYTES;
+    private long currentReserved;
+    private long currentCreatedNanos;
+    // json of the open batch, null once an event without json was appended
+    private ByteArrayOutputStream currentPayload = new ByteArrayOutputStream();
+    private boolean closed;
+
+    public EventBatchAccumulator(long maxBatchBytes, int maxBatchEvents, long lingerMs, int maxSealedBatches) {
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchEvents = Math.max(1, maxBatchEvents);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.maxSealedBatches = Math.max(1, maxSealedBatches);
+    }
+
+    /**
+     * Creates an accumulator from the maxBatchBytes, maxBatchEvents and
+     * lingerMs of the configuration, falling back to the library defaults and
+     * to chunkSize / threadCount events per batch.
+     *
+     * @param configuration {@link Configuration} of the template
+     */
+    public EventBatchAccumulator(Configuration configuration) {
+        this(configuration.getMaxBatchBytes() != null ? configuration.getMaxBatchBytes() : Constants.DEFAULT_MAX_BATCH_BYTES,
+                configuration.getMaxBatchEvents() != null ? configuration.getMaxBatchEvents() : configuration.getChunkSize() / configuration.getThreadCount(),
+                configuration.getLingerMs() != null ? configuration.getLingerMs() : Constants.DEFAULT_LINGER_MS,
+                configuration.getThreadCount() * Constants.INGESTION_QUEUE_CAPACITY_FACTOR);
+    }
+
+    /**
+     * Adds an event to the open batch. The event is serialized once here, the
+     * json of the events is kept as the request payload of the batch, see
+     * {@link #takePayload(List)}.
+     *
+     * @param event {@link TSIEvent} to add
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public void append(TSIEvent event) throws InterruptedException {
+        byte[] json;
+        try {
+            long start = System.nanoTime();
+            json = mapper.writeValueAsBytes(event);
+            Metrics.recordSince(Metric.SERIALIZATION, start);
+        } catch (JsonProcessingException e) {
+            log.error("Event to json conversion has some exception, {}", e.getMessage());
+            append(event, Constants.MAX_EVENT_SIZE_ALLOWED_BYTES, null);
+            return;
+        }
+        append(event, json.length, json);
+    }
+
+    /**
+     * Adds an event whose serialized size is already known. The batch of the
+     * event has no payload then, it is serialized when it is sent.
+     *
+     * @param event {@link TSIEvent} to add
+     * @param serializedBytes size of the event json in bytes
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public void append(TSIEvent event, long serializedBytes) throws InterruptedException {
+        append(event, serializedBytes, null);
+    }
+
+    private void append(TSIEvent event, long serializedBytes, byte[] json) throws InterruptedException {
+        MemoryBudget budget = memoryBudget;
+        long reserved = 0;
+        if (budget != null) {
+            // reserved outside of the lock, the sender must be able to take batches while a producer waits
+            reserved = SizeEstimator.estimateEventInFlight(event, serializedBytes);
+            if (!budget.acquire(reserved)) {
+                throw new IllegalStateException("Memory budget is aborted");
+            }
+        }
+        try {
+            lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            releaseBudget(reserved);
+            throw e;
+        }
+        try {
+            // wait before sizing, other producers may fill the open batch meanwhile
+            while (!closed && sealed.size() >= maxSealedBatches) {
+                spaceAvailable.await();
+            }
+            if (closed) {
+                releaseBudget(reserved);
+                throw new IllegalStateException("Accumulator is closed");
+            }
+            // one comma separator per event after the first one
+            if (!current.isEmpty() && currentBytes + serializedBytes + 1 > maxBatchBytes) {
+                sealCurrent();
+            }
+            long eventBytes = serializedBytes + (current.isEmpty() ? 0 : 1);
+            if (current.isEmpty()) {
+                currentCreatedNanos = System.nanoTime();
+            }
+            current.add(event);
+            currentBytes += eventBytes;
+            currentReserved += reserved;
+            appendPayload(json);
+            if (current.size() >= maxBatchEvents || currentBytes >= maxBatchBytes) {
+                sealCurrent();
+            }
+        } catch (InterruptedException e) {
+            releaseBudget(reserved);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendPayload(byte[] json) {
+        if (currentPayload == null) {
+            return;
+        }
+        if (json == null) {
+            // an event of unknown json, the batch is serialized by the sender
+            currentPayload = null;
+            return;
+        }
+        currentPayload.write(current.size() > 1 ? ',' : '[');
+        currentPayload.write(json, 0, json.length);
+    }
+
+    /**
+     * Seals the open batch, even if it is not full.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (!current.isEmpty()) {
+                sealCurrent();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the next sealed batch. The open batch is sealed and returned if
+     * it has lingered for longer than the linger time.
+     *
+     * @param timeout maximum time to wait for a batch
+     * @param unit unit of the timeout
+     * @return batch of events, or null if no batch was ready in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<TSIEvent> nextBatch(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (!sealed.isEmpty()) {
+                    List<TSIEvent> batch = sealed.pollFirst();
+                    spaceAvailable.signalAll();
+                    return batch;
+                }
+                long now = System.nanoTime();
+                if (!current.isEmpty() && (closed || now - currentCreatedNanos >= lingerNanos)) {
+                    sealCurrent();
+                    continue;
+                }
+                if (closed) {
+                    return null;
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    return null;
+                }
+                if (!current.isEmpty()) {
+                    remaining = Math.min(remaining, currentCreatedNanos + lingerNanos - now);
+                }
+                batchReady.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sealCurrent() {
+        log.debug("Sealing batch of {} events, {} bytes", current.size(), currentBytes);
+        sealed.addLast(current);
+        if (currentReserved > 0) {
+            reservedBytes.put(current, currentReserved);
+        }
+        if (currentPayload != null) {
+            currentPayload.write(']');
+            payloads.put(current, currentPayload.toByteArray());
+        }
+        current = new ArrayList<>();
+        currentBytes = BATCH_OVERHEAD_BYTES;
+        currentReserved = 0;
+        currentPayload = new ByteArrayOutputStream();
+        batchReady.signalAll();
+    }
+
+    /**
+     * Removes and returns the request payload of a batch returned by
+     * {@link #nextBatch(long, TimeUnit)}, ie the json array of its events.
+     *
+     * @param batch batch of events
+     * @return json payload, or null if an event of the batch was appended
+     * with its size only
+     */
+    public byte[] takePayload(List<TSIEvent> batch) {
+        lock.lock();
+        try {
+            return payloads.remove(batch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the memory reserved for a batch returned by
+     * {@link #nextBatch(long, TimeUnit)}, once it is sent.
+     *
+     * @param batch batch of events
+     */
+    public void release(List<TSIEvent> batch) {
+        Long reserved;
+        lock.lock();
+        try {
+            reserved = reservedBytes.remove(batch);
+        } finally {
+            lock.unlock();
+        }
+        if (reserved != null) {
+            releaseBudget(reserved);
+        }
+    }
+
+    private void releaseBudget(long reserved) {
+        if (memoryBudget != null && reserved > 0) {
+            memoryBudget.release(reserved);
+        }
+    }
+
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * @return true once the accumulator is closed and every batch was taken
+     */
+    public boolean isDrained() {
+        lock.lock();
+        try {
+            return closed && sealed.isEmpty() && current.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of sealed batches waiting for the sender
+     */
+    public int getSealedBatchCount() {
+        lock.lock();
+        try {
+            return sealed.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSealedBatches() {
+        return maxSealedBatches;
+    }
+
+    public long getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public int getMaxBatchEvents() {
+        return maxBatchEvents;
+    }
+
+    /**
+     * Stops accepting events, the remaining events can still be taken with
+     * {@link #nextBatch(long, TimeUnit)}.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            batchReady.signalAll();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
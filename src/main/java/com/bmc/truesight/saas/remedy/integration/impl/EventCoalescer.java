@@ -0,0 +1,127 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.util.EventFingerprint;
+
+/**
+ * This class merges the versions of the same ticket seen within a time
+ * window, ex a ticket modified several times during a poll, or matching more
+ * than one of the conditionFields ranges. Events are keyed by their
+ * fingerprint, and only the version with the newest Last_Modified_Date is
+ * kept. An event is released once its window has elapsed since the first
+ * version of the ticket was seen, or earlier when too many tickets are held.
+ * Events without fingerprint are released immediately.
+ *
+ * @author vitiwari
+ */
+public class EventCoalescer {
+
+    private final long windowNanos;
+    private final int maxPending;
+    // insertion order is the order of the deadlines, the window being constant
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private long coalescedCount;
+
+    private static class Pending {
+
+        private TSIEvent event;
+        private long lastModified;
+        private final long deadlineNanos;
+
+        Pending(TSIEvent event, long lastModified, long deadlineNanos) {
+            this.event = event;
+            this.lastModified = lastModified;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    /**
+     * @param windowMs time a ticket is held for newer versions
+     * @param maxPending maximum no of tickets held, the oldest one is released
+     * beyond it
+     */
+    public EventCoalescer(long windowMs, int maxPending) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /**
+     * Adds an event, replacing an older version of the same ticket.
+     *
+     * @param event {@link TSIEvent}
+     * @return events to release now, usually empty
+     */
+    public synchronized List<TSIEvent> offer(TSIEvent event) {
+        String fingerprint = EventFingerprint.getFingerprint(event);
+        if (fingerprint == null) {
+            return Collections.singletonList(event);
+        }
+        long lastModified = EventFingerprint.getLastModified(event);
+        Pending held = pending.get(fingerprint);
+        if (held != null) {
+            coalescedCount++;
+            // same timestamp, the latest read wins
+            if (lastModified >= held.lastModified) {
+                held.event = event;
+                held.lastModified = lastModified;
+            }
+            return Collections.emptyList();
+        }
+        pending.put(fingerprint, new Pending(event, lastModified, System.nanoTime() + windowNanos));
+        if (pending.size() > maxPending) {
+            Iterator<Pending> oldest = pending.values().iterator();
+            TSIEvent released = oldest.next().event;
+            oldest.remove();
+            return Collections.singletonList(released);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return events whose window has elapsed, removed from the coalescer
+     */
+    public synchronized List<TSIEvent> expired() {
+        List<TSIEvent> released = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<Pending> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Pending held = iterator.next();
+            if (held.deadlineNanos - now > 0) {
+                break;
+            }
+            released.add(held.event);
+            iterator.remove();
+        }
+        return released;
+    }
+
+    /**
+     * @return all the events held, removed from the coalescer
+     */
+    public synchronized List<TSIEvent> drain() {
+        List<TSIEvent> released = new ArrayList<>(pending.size());
+        for (Pending held : pending.values()) {
+            released.add(held.event);
+        }
+        pending.clear();
+        return released;
+    }
+
+    /**
+     * @return no of intermediate versions merged so far
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,256 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.beans.Accepted;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.EventFingerprint;
+
+/**
+ * This class remembers the content hash of the last event accepted by TSI for
+ * every ticket, so that events of unchanged tickets can be dropped before
+ * they are serialized and sent, ex on overlapping windows or re-runs.
+ * <p>
+ * The store is an open-addressing hash table (linear probing) of 64 bit
+ * fingerprint hashes to 64 bit content hashes, in a memory-mapped file which
+ * persists between runs. It grows by doubling when it is 70% full, up to
+ * {@link Constants#DEDUP_MAX_CAPACITY} slots. Events are
+ * filtered with {@link #filterChanged(List)}, and the hashes are only
+ * recorded once TSI accepts the event, the store being an
+ * {@link IngestionListener}.
+ *
+ * @author vitiwari
+ */
+public class EventDedupStore implements IngestionListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventDedupStore.class);
+    private static final int MAGIC = 0x54534944;
+    // magic, capacity, size, reserved
+    private static final int HEADER_BYTES = 16;
+    // fingerprint hash, content hash
+    private static final int SLOT_BYTES = 16;
+    private static final long EMPTY = 0L;
+
+    private final File file;
+    private RandomAccessFile raf;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+    private long droppedCount;
+
+    public EventDedupStore(File file) throws IOException {
+        this(file, Constants.DEDUP_DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens the store, or creates it with the initial capacity.
+     *
+     * @param file table file
+     * @param initialCapacity no of slots of a new table, rounded up to a power
+     * of two
+     * @throws IOException if the file can not be opened or is not a table
+     */
+    public EventDedupStore(File file, int initialCapacity) throws IOException {
+        this.file = file;
+        if (file.exists() && file.length() > 0) {
+            map(file);
+            if (buffer.getInt(0) != MAGIC) {
+                raf.close();
+                throw new IOException("File " + file + " is not a dedup table");
+            }
+            capacity = buffer.getInt(4);
+            size = buffer.getInt(8);
+        } else {
+            capacity = Math.min(Constants.DEDUP_MAX_CAPACITY, Integer.highestOneBit(Math.max(2, initialCapacity - 1)) << 1);
+            create(file, capacity);
+            map(file);
+        }
+        log.debug("Dedup store {} opened, {} tickets, capacity {}", new Object[]{file, size, capacity});
+    }
+
+    private static void create(File target, int slots) throws IOException {
+        try (RandomAccessFile created = new RandomAccessFile(target, "rw")) {
+            created.setLength(HEADER_BYTES + (long) slots * SLOT_BYTES);
+            created.writeInt(MAGIC);
+            created.writeInt(slots);
+            created.writeInt(0);
+        }
+    }
+
+    private void map(File source) throws IOException {
+        raf = new RandomAccessFile(source, "rw");
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+    }
+
+    /**
+     * @param event {@link TSIEvent}
+     * @return true if an event with the same content was already accepted for
+     * the ticket
+     */
+    public synchronized boolean isUnchanged(TSIEvent event) {
+        String fingerprint = EventFingerprint.getFingerprint(event);
+        if (fingerprint == null) {
+            return false;
+        }
+        int slot = find(keyHash(fingerprint));
+        return slot >= 0 && buffer.getLong(offset(slot) + 8) == EventFingerprint.contentHash(event);
+    }
+
+    /**
+     * Drops the events of unchanged tickets.
+     *
+     * @param events events to send
+     * @return the events which are new or changed
+     */
+    public synchronized List<TSIEvent> filterChanged(List<TSIEvent> events) {
+        List<TSIEvent> changed = new ArrayList<>(events.size());
+        for (TSIEvent event : events) {
+            if (isUnchanged(event)) {
+                droppedCount++;
+            } else {
+                changed.add(event);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Records the content of an event as the last one sent for its ticket.
+     *
+     * @param event {@link TSIEvent} accepted by TSI
+     * @throws IOException if the table can not grow
+     */
+    public synchronized void record(TSIEvent event) throws IOException {
+        String fingerprint = EventFingerprint.getFingerprint(event);
+        if (fingerprint == null) {
+            return;
+        }
+        long key = keyHash(fingerprint);
+        int slot = find(key);
+        if (slot < 0) {
+            if (size + 1 > capacity * Constants.DEDUP_MAX_LOAD_FACTOR) {
+                grow();
+                slot = find(key);
+            }
+            slot = -slot - 1;
+            buffer.putLong(offset(slot), key);
+            size++;
+            buffer.putInt(8, size);
+        }
+        buffer.putLong(offset(slot) + 8, EventFingerprint.contentHash(event));
+    }
+
+    /**
+     * Returns the slot of the key, or -(free slot + 1) if the key is missing.
+     */
+    private int find(long key) {
+        int mask = capacity - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (true) {
+            long stored = buffer.getLong(offset(slot));
+            if (stored == key) {
+                return slot;
+            }
+            if (stored == EMPTY) {
+                return -slot - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static long keyHash(String fingerprint) {
+        long key = EventFingerprint.hash64(fingerprint);
+        // 0 marks an empty slot
+        return key == EMPTY ? 1L : key;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private void grow() throws IOException {
+        if (capacity >= Constants.DEDUP_MAX_CAPACITY) {
+            throw new IOException("Dedup store " + file + " is full, " + size + " tickets");
+        }
+        int newCapacity = capacity << 1;
+        File temp = new File(file.getPath() + Constants.CHECKPOINT_TEMP_SUFFIX);
+        create(temp, newCapacity);
+        MappedByteBuffer old = buffer;
+        RandomAccessFile oldRaf = raf;
+        int oldCapacity = capacity;
+        map(temp);
+        capacity = newCapacity;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long key = old.getLong(offset(slot));
+            if (key != EMPTY) {
+                int free = -find(key) - 1;
+                buffer.putLong(offset(free), key);
+                buffer.putLong(offset(free) + 8, old.getLong(offset(slot) + 8));
+            }
+        }
+        buffer.putInt(8, size);
+        buffer.force();
+        oldRaf.close();
+        // the mapping stays valid after the move, it refers to the file not to its name
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.debug("Dedup store grown from {} to {} slots", oldCapacity, newCapacity);
+    }
+
+    @Override
+    public synchronized void onBatchComplete(BatchResult batchResult) {
+        if (batchResult.getResult() == null || batchResult.getResult().getAccepted() == null) {
+            return;
+        }
+        try {
+            for (Accepted accepted : batchResult.getResult().getAccepted()) {
+                TSIEvent event = batchResult.getEvent(accepted.getIndex());
+                if (event != null) {
+                    record(event);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Recording the accepted events in the dedup store failed, {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return no of tickets in the store
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return no of events dropped as unchanged since the store was opened
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Writes the table to the disk.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        raf.close();
+    }
+}
@@ -1,19 +1,33 @@
 package com.bmc.truesight.saas.remedy.integration.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
 
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bmc.truesight.saas.remedy.integration.beans.Accepted;
+import com.bmc.truesight.saas.remedy.integration.EventIngestionServiceMXBean;
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.MetricsRegistry;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.CompactResult;
 import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
-import com.bmc.truesight.saas.remedy.integration.beans.Error;
 import com.bmc.truesight.saas.remedy.integration.beans.IndexedResult;
 import com.bmc.truesight.saas.remedy.integration.beans.Result;
 import com.bmc.truesight.saas.remedy.integration.beans.Success;
@@ -21,122 +35,522 @@ import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
 import com.bmc.truesight.saas.remedy.integration.exception.BulkEventsIngestionFailedException;
 import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
 import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.MBeans;
+import com.bmc.truesight.saas.remedy.integration.util.Metrics;
+import com.bmc.truesight.saas.remedy.integration.util.NamedThreadFactory;
+import com.bmc.truesight.saas.remedy.integration.util.RateMeter;
 
-public class EventIngestionExecuterService {
+/**
+ * This class sends the events to TSI in parallel batches.
+ * <p>
+ * An instance created with the default constructor creates a thread pool for
+ * every {@link #ingestEvents(List, Configuration)} call and shuts it down
+ * afterwards. An instance created with
+ * {@link #EventIngestionExecuterService(Configuration)} owns one long-lived,
+ * bounded executor which is reused across calls, backpressure is applied by
+ * running the batch in the calling thread when the work queue is full. Such an
+ * instance must be closed with {@link #close()} once the ingestion is done.
+ * <p>
+ * With jmxEnabled in the configuration, such an instance registers itself as
+ * an {@link EventIngestionServiceMXBean}, and a {@link BulkEventHttpClientStats}
+ * for its http clients, until it is closed. The http statistics need an
+ * {@link InMemoryMetricsRegistry}, they are only registered if the caller
+ * installed one with {@link Metrics#setRegistry(MetricsRegistry)} before
+ * creating the instance.
+ *
+ * @author vitiwari
+ */
+public class EventIngestionExecuterService implements AutoCloseable, EventIngestionServiceMXBean {
 
     private final static Logger log = LoggerFactory.getLogger(EventIngestionExecuterService.class);
 
+    private AdaptiveConcurrencyLimiter limiter;
+    private final ThreadPoolExecutor sharedExecutor;
+    private final LongAdder completedBatches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final RateMeter batchRate = new RateMeter();
+    private final RateMeter eventRate = new RateMeter();
+    // thread count set through JMX, 0 to size the executors from the configuration
+    private volatile int threadCountOverride;
+    private ObjectName objectName;
+    private ObjectName httpClientObjectName;
+
+    public EventIngestionExecuterService() {
+        this.sharedExecutor = null;
+    }
+
+    /**
+     * Creates a reusable ingestion service, the executor is sized from the
+     * threadCount (or maxThreadCount when adaptive concurrency is enabled) of
+     * the given configuration.
+     *
+     * @param configuration {@link Configuration} used to size the executor
+     */
+    public EventIngestionExecuterService(Configuration configuration) {
+        int poolSize = getPoolSize(configuration);
+        this.sharedExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(poolSize * Constants.INGESTION_QUEUE_CAPACITY_FACTOR),
+                new NamedThreadFactory(Constants.INGESTION_THREAD_NAME_PREFIX, false),
+                (task, pool) -> {
+                    // caller-runs backpressure, a closed service must not silently drop the batch
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Ingestion service is closed");
+                    }
+                    task.run();
+                });
+        log.debug("Created ingestion executor with {} threads", poolSize);
+        if (configuration.getJmxEnabled() != null && configuration.getJmxEnabled()) {
+            registerMBeans(configuration);
+        }
+    }
+
+    private void registerMBeans(Configuration configuration) {
+        objectName = MBeans.register(this, "EventIngestionService", Constants.INGESTION_THREAD_NAME_PREFIX);
+        // the registry is process-wide, it is left to the caller to install one
+        MetricsRegistry registry = Metrics.getRegistry();
+        if (registry instanceof InMemoryMetricsRegistry) {
+            httpClientObjectName = MBeans.register(new BulkEventHttpClientStats((InMemoryMetricsRegistry) registry, configuration),
+                    "BulkEventHttpClient", Constants.INGESTION_THREAD_NAME_PREFIX);
+        } else {
+            log.debug("No InMemoryMetricsRegistry is set, the http client MBean is not registered");
+        }
+    }
+
+    /**
+     * Sends the events to TSI and returns one {@link com.bmc.truesight.saas.remedy.integration.beans.Accepted}
+     * or {@link com.bmc.truesight.saas.remedy.integration.beans.Error} object
+     * per event, with the TSI ids of the accepted events. For large runs prefer
+     * {@link #ingestEventsCompact(List, Configuration)}, which keeps the
+     * outcome of every event in a few bits.
+     *
+     * @param eventsList list of {@link TSIEvent} to send
+     * @param configuration {@link Configuration} of the template
+     * @return {@link Result} with absolute event indexes
+     * @throws BulkEventsIngestionFailedException in case of failure
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
     public Result ingestEvents(List<TSIEvent> eventsList, Configuration configuration) throws BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        return ingestEventsCompact(eventsList, configuration, true).toResult();
+    }
+
+    /**
+     * Sends the events to TSI like {@link #ingestEvents(List, Configuration)},
+     * but returns the outcome as a {@link CompactResult} without the TSI ids
+     * of the accepted events, which is the preferred form for large runs.
+     *
+     * @param eventsList list of {@link TSIEvent} to send
+     * @param configuration {@link Configuration} of the template
+     * @return {@link CompactResult} with absolute event indexes
+     * @throws BulkEventsIngestionFailedException in case of failure
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public CompactResult ingestEventsCompact(List<TSIEvent> eventsList, Configuration configuration) throws BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        return ingestEventsCompact(eventsList, configuration, false);
+    }
+
+    /**
+     * Sends the events to TSI and returns the outcome as a
+     * {@link CompactResult}.
+     *
+     * @param eventsList list of {@link TSIEvent} to send
+     * @param configuration {@link Configuration} of the template
+     * @param retainAcceptedIds true to keep the TSI id of every accepted event
+     * @return {@link CompactResult} with absolute event indexes
+     * @throws BulkEventsIngestionFailedException in case of failure
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public CompactResult ingestEventsCompact(List<TSIEvent> eventsList, Configuration configuration, boolean retainAcceptedIds) throws BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        InMemoryResultSink sink = new InMemoryResultSink(retainAcceptedIds);
+        ingestEvents(eventsList, configuration, sink);
+        return sink.getResult();
+    }
+
+    /**
+     * Sends the events to TSI and streams the result of every batch to the
+     * listener as soon as the batch completes, nothing is aggregated by the
+     * service itself.
+     *
+     * @param eventsList list of {@link TSIEvent} to send
+     * @param configuration {@link Configuration} of the template
+     * @param listener {@link IngestionListener} receiving the batch results
+     * @throws BulkEventsIngestionFailedException in case of failure
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public void ingestEvents(List<TSIEvent> eventsList, Configuration configuration, IngestionListener listener) throws BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
 
-        int EVENTS_INGESTION_SIZE = configuration.getChunkSize() / configuration.getThreadCount();
+        int EVENTS_INGESTION_SIZE = getBatchEvents(configuration);
 
-        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(Constants.EVENTASYNC_FIXED_THREAD_POOL);
-        Result resultFinal = new Result();
-        List<IndexedResult> resultList = new ArrayList<>();
         if (eventsList.size() > 0) {
+            ThreadPoolExecutor executor = getExecutor(configuration);
+            CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+            // only the batches in flight, a delivered batch is removed so that its events and result can be collected
+            Map<Future<Result>, IndexedResult> indexedByFuture = new HashMap<>();
             int totalSize = eventsList.size();
             int startIndex = 0;
-            while (totalSize > 0) {
-                int taskSize = 0;
-                if (totalSize <= EVENTS_INGESTION_SIZE) {
-                    taskSize = totalSize;
-                    totalSize = 0;
-                } else {
-                    taskSize = EVENTS_INGESTION_SIZE;
-                    totalSize = totalSize - taskSize;
-                }
-                log.debug("Adding events from {} to {} to a thread ", startIndex, (startIndex + taskSize - 1));
-                Future<Result> result = executor.submit(new CallableBulkEventHttpClient(eventsList.subList(startIndex, (startIndex + taskSize)), configuration));
-                IndexedResult indexedResult = new IndexedResult();
-                indexedResult.setResult(result);
-                indexedResult.setStartIndex(startIndex);
-                indexedResult.setTaskSize(taskSize);
-                resultList.add(indexedResult);
-                startIndex = startIndex + taskSize;
-            }
-            log.debug("Time to start {} threads in parrallel ", executor.getTaskCount());
-
-            int successCount = 0;
-            int failureCount = 0;
-            int partialCount = 0;
-            for (IndexedResult indexed : resultList) {
-                Result resultitem;
-                try {
-                    resultitem = indexed.getResult().get();
-                    if (resultitem != null) {
-                        if (resultitem.getSuccess() != null) {
-                            if (resultitem.getSuccess() == Success.TRUE) {
-                                successCount++;
-                            } else if (resultitem.getSuccess() == Success.FALSE) {
-                                failureCount++;
-                            } else if (resultitem.getSuccess() == Success.PARTIAL) {
-                                partialCount++;
-                            }
-                        }
-
-                        if (resultitem.getAccepted() != null) {
-                            if (resultFinal.getAccepted() == null) {
-                                resultFinal.setAccepted(correctAcceptedIndexes(new ArrayList<>(resultitem.getAccepted()), indexed));
-                            } else {
-                                resultFinal.getAccepted().addAll(correctAcceptedIndexes(resultitem.getAccepted(), indexed));
-                            }
-                        }
-
-                        if (resultitem.getErrors() != null) {
-                            if (resultFinal.getErrors() == null) {
-                                resultFinal.setErrors(correctErrorIndexes(new ArrayList<>(resultitem.getErrors()), indexed));
-                            } else {
-                                resultFinal.getErrors().addAll(correctErrorIndexes(resultitem.getErrors(), indexed));
-                            }
-                        }
-                        if (resultitem.getSent() != 0) {
-                            resultFinal.setSent(resultFinal.getSent() + resultitem.getSent());
-                        }
+            int submitted = 0;
+            try {
+                while (totalSize > 0) {
+                    int taskSize = 0;
+                    if (totalSize <= EVENTS_INGESTION_SIZE) {
+                        taskSize = totalSize;
+                        totalSize = 0;
+                    } else {
+                        taskSize = EVENTS_INGESTION_SIZE;
+                        totalSize = totalSize - taskSize;
                     }
+                    log.debug("Adding events from {} to {} to a thread ", startIndex, (startIndex + taskSize - 1));
+                    submitBatch(completionService, eventsList.subList(startIndex, (startIndex + taskSize)), null, startIndex, configuration, indexedByFuture, executor);
+                    startIndex = startIndex + taskSize;
+                    submitted++;
+                }
+                log.debug("Time to start {} threads in parrallel ", submitted);
 
-                } catch (InterruptedException e) {
-                    log.error(e.getMessage());
-                } catch (ExecutionException e) {
-                    executor.shutdownNow();
-                    if (ExceptionUtils.indexOfThrowable(e, TsiAuthenticationFailedException.class) != -1) {
-                        log.debug("Execution exception, TsiAuthenticationFailedException");
-                        throw new TsiAuthenticationFailedException("TSI authentication failed, please verify the Api Token / Api endpoint");
-                    } else {
-                        throw new BulkEventsIngestionFailedException(e.getMessage());
+                // results are aggregated in completion order, so that a slow batch does not hold back the others
+                // and a failure in any batch is noticed as soon as it happens
+                for (int completed = 0; completed < submitted; completed++) {
+                    Future<Result> done;
+                    try {
+                        done = completionService.take();
+                    } catch (InterruptedException e) {
+                        throw interrupted(e, indexedByFuture, executor);
                     }
+                    deliverBatch(done, indexedByFuture, listener, executor);
                 }
+            } finally {
+                // also after a failure thrown by the listener, so that a per-call executor is never leaked
+                cancelPending(indexedByFuture, executor);
             }
-            if (partialCount > 0 || (failureCount > 0 && successCount > 0)) {
-                resultFinal.setSuccess(Success.PARTIAL);
-            } else if (failureCount > 0) {
-                resultFinal.setSuccess(Success.FALSE);
-            } else if (successCount > 0) {
-                resultFinal.setSuccess(Success.TRUE);
+
+        }
+    }
+
+    /**
+     * Sends the batches sealed by an {@link EventBatchAccumulator} until the
+     * accumulator is closed and drained. Every batch is sent as a single
+     * request, the indexes reported to the listener count the events in the
+     * order they were taken from the accumulator. At most twice as many
+     * batches as the executor has threads are taken at a time, the others
+     * stay in the accumulator.
+     *
+     * @param accumulator {@link EventBatchAccumulator} filled by the producers
+     * @param configuration {@link Configuration} of the template
+     * @param listener {@link IngestionListener} receiving the batch results
+     * @throws BulkEventsIngestionFailedException in case of failure
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public void ingestBatches(EventBatchAccumulator accumulator, Configuration configuration, IngestionListener listener) throws BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        ThreadPoolExecutor executor = getExecutor(configuration);
+        CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+        // only the batches in flight, a delivered batch is removed so that its events and result can be collected
+        Map<Future<Result>, IndexedResult> indexedByFuture = new HashMap<>();
+        int startIndex = 0;
+        int maxInFlight = executor.getMaximumPoolSize() * Constants.INGESTION_QUEUE_CAPACITY_FACTOR;
+        try {
+            while (!accumulator.isDrained()) {
+                // the next sealed batches wait in the accumulator, bounded by maxSealedBatches, not in the executor queue
+                if (indexedByFuture.size() >= maxInFlight) {
+                    accumulator.release(deliverBatch(completionService.take(), indexedByFuture, listener, executor).getEvents());
+                    continue;
+                }
+                List<TSIEvent> batch = accumulator.nextBatch(Constants.ACCUMULATOR_POLL_MS, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    submitBatch(completionService, batch, accumulator.takePayload(batch), startIndex, configuration, indexedByFuture, executor);
+                    startIndex = startIndex + batch.size();
+                }
+                Future<Result> done;
+                while ((done = completionService.poll()) != null) {
+                    accumulator.release(deliverBatch(done, indexedByFuture, listener, executor).getEvents());
+                }
+            }
+            while (!indexedByFuture.isEmpty()) {
+                accumulator.release(deliverBatch(completionService.take(), indexedByFuture, listener, executor).getEvents());
+            }
+        } catch (InterruptedException e) {
+            throw interrupted(e, indexedByFuture, executor);
+        } finally {
+            cancelPending(indexedByFuture, executor);
+        }
+    }
+
+    private ThreadPoolExecutor getExecutor(Configuration configuration) throws BulkEventsIngestionFailedException {
+        if (sharedExecutor != null && sharedExecutor.isShutdown()) {
+            throw new BulkEventsIngestionFailedException("Ingestion service is closed, events can not be sent");
+        }
+        return sharedExecutor != null ? sharedExecutor : createCallExecutor(configuration);
+    }
+
+    private void submitBatch(CompletionService<Result> completionService, List<TSIEvent> events, byte[] payload, int startIndex, Configuration configuration,
+            Map<Future<Result>, IndexedResult> indexedByFuture, ThreadPoolExecutor executor) throws BulkEventsIngestionFailedException {
+        Future<Result> result;
+        try {
+            result = completionService.submit(limited(new CallableBulkEventHttpClient(events, payload, configuration), configuration));
+        } catch (RejectedExecutionException e) {
+            cancelPending(indexedByFuture, executor);
+            throw new BulkEventsIngestionFailedException("Ingestion service is closed, events can not be sent");
+        }
+        IndexedResult indexedResult = new IndexedResult();
+        indexedResult.setResult(result);
+        indexedResult.setStartIndex(startIndex);
+        indexedResult.setTaskSize(events.size());
+        indexedResult.setEvents(events);
+        indexedByFuture.put(result, indexedResult);
+    }
+
+    private IndexedResult deliverBatch(Future<Result> done, Map<Future<Result>, IndexedResult> indexedByFuture, IngestionListener listener,
+            ThreadPoolExecutor executor) throws BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        IndexedResult indexed = indexedByFuture.remove(done);
+        try {
+            Result batchResult = done.get();
+            completedBatches.increment();
+            batchRate.mark(1);
+            eventRate.mark(indexed.getTaskSize());
+            if (batchResult == null || batchResult.getSuccess() == Success.FALSE) {
+                failedBatches.increment();
+            }
+            shiftIndexes(batchResult, indexed.getStartIndex());
+            listener.onBatchComplete(new BatchResult(indexed.getStartIndex(), indexed.getTaskSize(), batchResult, getEntryIds(indexed.getEvents()), indexed.getEvents()));
+            return indexed;
+        } catch (InterruptedException e) {
+            throw interrupted(e, indexedByFuture, executor);
+        } catch (ExecutionException e) {
+            failedBatches.increment();
+            cancelPending(indexedByFuture, executor);
+            if (ExceptionUtils.indexOfThrowable(e, TsiAuthenticationFailedException.class) != -1) {
+                log.debug("Execution exception, TsiAuthenticationFailedException");
+                throw new TsiAuthenticationFailedException("TSI authentication failed, please verify the Api Token / Api endpoint");
             } else {
-                resultFinal.setSuccess(Success.FALSE);
+                throw new BulkEventsIngestionFailedException(e.getMessage());
             }
-            // shut down the executor service now
+        }
+    }
+
+    private BulkEventsIngestionFailedException interrupted(InterruptedException e, Map<Future<Result>, IndexedResult> indexedByFuture, ThreadPoolExecutor executor) {
+        log.error("Interrupted while waiting for the ingestion result, {}", e.getMessage());
+        cancelPending(indexedByFuture, executor);
+        Thread.currentThread().interrupt();
+        return new BulkEventsIngestionFailedException("Interrupted while waiting for the ingestion result");
+    }
+
+    private void shiftIndexes(Result batchResult, int startIndex) {
+        if (batchResult == null) {
+            return;
+        }
+        if (batchResult.getAccepted() != null) {
+            batchResult.getAccepted().forEach(accepted -> accepted.setIndex(accepted.getIndex() + startIndex));
+        }
+        if (batchResult.getErrors() != null) {
+            batchResult.getErrors().forEach(error -> error.setIndex(error.getIndex() + startIndex));
+        }
+    }
+
+    private List<String> getEntryIds(List<TSIEvent> events) {
+        List<String> entryIds = new ArrayList<>(events.size());
+        for (TSIEvent event : events) {
+            entryIds.add(event.getEntryId());
+        }
+        return entryIds;
+    }
+
+    /**
+     * Cancels the batches still in flight of one ingestEvents call, a shared
+     * executor keeps serving other calls.
+     */
+    private void cancelPending(Map<Future<Result>, IndexedResult> indexedByFuture, ThreadPoolExecutor executor) {
+        indexedByFuture.keySet().forEach(pending -> pending.cancel(true));
+        if (executor != sharedExecutor) {
             executor.shutdown();
+        }
+    }
+
+    private ThreadPoolExecutor createCallExecutor(Configuration configuration) {
+        int poolSize = getPoolSize(configuration);
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new NamedThreadFactory(Constants.INGESTION_THREAD_NAME_PREFIX, false));
+    }
+
+    /**
+     * Stops accepting new batches and waits up to
+     * {@link Constants#INGESTION_DRAIN_TIMEOUT_MS} for the batches in flight to
+     * finish.
+     */
+    @Override
+    public void close() {
+        close(Constants.INGESTION_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops accepting new batches and waits for the batches in flight to
+     * finish. Batches still running after the deadline are interrupted.
+     *
+     * @param timeout maximum time to wait for the batches in flight
+     * @param unit unit of the timeout
+     * @return true if all the batches finished within the deadline
+     */
+    public boolean close(long timeout, TimeUnit unit) {
+        if (sharedExecutor == null) {
+            return true;
+        }
+        MBeans.unregister(objectName);
+        MBeans.unregister(httpClientObjectName);
+        sharedExecutor.shutdown();
+        boolean drained = false;
+        try {
+            drained = sharedExecutor.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!drained) {
+            List<Runnable> pending = sharedExecutor.shutdownNow();
+            log.error("Ingestion executor did not drain within {} ms, {} queued batch(es) dropped", unit.toMillis(timeout), pending.size());
+        }
+        return drained;
+    }
+
+    /**
+     * The pool is sized from the configured threadCount, when adaptive
+     * concurrency is enabled it is sized to the maximum limit and the
+     * {@link AdaptiveConcurrencyLimiter} decides how many batches are in flight.
+     */
+    private int getPoolSize(Configuration configuration) {
+        int threadCount = configuration.getThreadCount() != null && configuration.getThreadCount() > 0 ? configuration.getThreadCount() : Constants.EVENTASYNC_FIXED_THREAD_POOL;
+        if (threadCountOverride > 0) {
+            return threadCountOverride;
+        }
+        if (isAdaptive(configuration)) {
+            return getLimiter(configuration).getMaxLimit();
+        }
+        return threadCount;
+    }
+
+    /**
+     * Events per batch of an ingestEvents call, maxBatchEvents when it is
+     * configured. Otherwise the chunk is split in one batch per pool thread,
+     * ie maxThreadCount batches with adaptive concurrency, so that the
+     * limiter can raise the no of batches in flight above threadCount.
+     */
+    private int getBatchEvents(Configuration configuration) {
+        if (configuration.getMaxBatchEvents() != null && configuration.getMaxBatchEvents() > 0) {
+            return configuration.getMaxBatchEvents();
+        }
+        return Math.max(1, configuration.getChunkSize() / getPoolSize(configuration));
+    }
+
+    private boolean isAdaptive(Configuration configuration) {
+        return configuration.getAdaptiveConcurrency() != null && configuration.getAdaptiveConcurrency();
+    }
+
+    private synchronized AdaptiveConcurrencyLimiter getLimiter(Configuration configuration) {
+        if (limiter == null) {
+            int threadCount = configuration.getThreadCount() != null && configuration.getThreadCount() > 0 ? configuration.getThreadCount() : Constants.EVENTASYNC_FIXED_THREAD_POOL;
+            int maxThreadCount = configuration.getMaxThreadCount() != null && configuration.getMaxThreadCount() > 0 ? configuration.getMaxThreadCount() : threadCount * Constants.ADAPTIVE_CONCURRENCY_DEFAULT_MAX_FACTOR;
+            limiter = new AdaptiveConcurrencyLimiter(threadCount, Constants.ADAPTIVE_CONCURRENCY_MIN_LIMIT, maxThreadCount);
+        }
+        return limiter;
+    }
 
+    private Callable<Result> limited(CallableBulkEventHttpClient client, Configuration configuration) {
+        if (!isAdaptive(configuration)) {
+            return client;
+        }
+        AdaptiveConcurrencyLimiter batchLimiter = getLimiter(configuration);
+        return () -> {
+            batchLimiter.acquire();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Result result = client.call();
+                // events rejected by TSI are not a sign of congestion, only a batch which could not be sent is
+                failed = result != null && result.isNotSent();
+                return result;
+            } finally {
+                batchLimiter.release(System.nanoTime() - start, failed);
+            }
+        };
+    }
+
+    /**
+     * Returns the adaptive limiter used by this service, it is null unless
+     * adaptiveConcurrency is enabled in the configuration.
+     *
+     * @return {@link AdaptiveConcurrencyLimiter} or null
+     */
+    public synchronized AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return limiter;
+    }
+
+    @Override
+    public long getCompletedBatches() {
+        return completedBatches.sum();
+    }
+
+    @Override
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    @Override
+    public long getCompletedEvents() {
+        return eventRate.getCount();
+    }
+
+    @Override
+    public double getBatchRate() {
+        return batchRate.getRatePerSecond();
+    }
+
+    @Override
+    public double getEventRate() {
+        return eventRate.getRatePerSecond();
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return sharedExecutor != null ? sharedExecutor.getActiveCount() : 0;
+    }
+
+    @Override
+    public int getQueuedBatches() {
+        return sharedExecutor != null ? sharedExecutor.getQueue().size() : 0;
+    }
+
+    @Override
+    public int getThreadCount() {
+        return sharedExecutor != null ? sharedExecutor.getMaximumPoolSize() : threadCountOverride;
+    }
+
+    /**
+     * Resizes the shared executor right away, an instance without a shared
+     * executor uses the thread count for its next calls.
+     */
+    @Override
+    public synchronized void setThreadCount(int threadCount) {
+        int poolSize = Math.max(1, threadCount);
+        threadCountOverride = poolSize;
+        if (sharedExecutor != null) {
+            // the core size may never exceed the maximum size
+            if (poolSize > sharedExecutor.getMaximumPoolSize()) {
+                sharedExecutor.setMaximumPoolSize(poolSize);
+                sharedExecutor.setCorePoolSize(poolSize);
+            } else {
+                sharedExecutor.setCorePoolSize(poolSize);
+                sharedExecutor.setMaximumPoolSize(poolSize);
+            }
+        }
+        if (limiter != null) {
+            limiter.setMaxLimit(poolSize);
         }
-        return resultFinal;
+        log.info("Ingestion thread count changed to {}", poolSize);
     }
 
-    private List<Error> correctErrorIndexes(List<Error> errorList, IndexedResult indexed) {
-        List<Error> errorListNew = new ArrayList<Error>();
-        errorList.forEach(error -> {
-            error.setIndex(error.getIndex() + indexed.getStartIndex());
-            errorListNew.add(error);
-        });
-        return errorListNew;
+    @Override
+    public int getConcurrencyLimit() {
+        AdaptiveConcurrencyLimiter current = getConcurrencyLimiter();
+        return current != null ? current.getLimit() : getThreadCount();
     }
 
-    private List<Accepted> correctAcceptedIndexes(List<Accepted> acceptedList, IndexedResult indexed) {
-        List<Accepted> acceptedListNew = new ArrayList<Accepted>();
-        acceptedList.forEach(accepted -> {
-            accepted.setIndex(accepted.getIndex() + indexed.getStartIndex());
-            acceptedListNew.add(accepted);
-        });
-        return acceptedListNew;
+    @Override
+    public int getInFlightBatches() {
+        AdaptiveConcurrencyLimiter current = getConcurrencyLimiter();
+        return current != null ? current.getInFlight() : getActiveThreads();
     }
 }
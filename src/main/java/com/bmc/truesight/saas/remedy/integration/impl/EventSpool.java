@@ -0,0 +1,409 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.NamedThreadFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class is a durable, append-only write-ahead spool for the events which
+ * are not yet accepted by TSI. The events are written into memory-mapped
+ * segment files before they are sent, and marked acknowledged by their record
+ * id once TSI accepts them. The record id is set on the spooled event, so
+ * that accepting an older version of a ticket does not acknowledge a newer
+ * one spooled meanwhile. A background task deletes the segments without
+ * pending events and rewrites the sparse ones, a rewritten record keeps its
+ * id. After a crash the pending events can be read back with
+ * {@link #getPendingEvents(long, int)} and sent again without querying
+ * Remedy.
+ * <p>
+ * Record layout: int length, byte state, int CRC32 of the body, then the body:
+ * long record id, short entry id length, entry id bytes, event json bytes.
+ * The length is written last, so a record is only visible once it is
+ * complete. On recovery a record whose checksum does not match is skipped,
+ * the segment is truncated at a record whose length is not valid.
+ *
+ * @author vitiwari
+ */
+public class EventSpool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventSpool.class);
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final byte STATE_PENDING = 0;
+    private static final byte STATE_ACKED = 1;
+    // length + state + checksum
+    private static final int RECORD_HEADER_BYTES = 9;
+    private static final int STATE_OFFSET = 4;
+    private static final int CHECKSUM_OFFSET = 5;
+    // record id + entry id length
+    private static final int BODY_HEADER_BYTES = 10;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File directory;
+    private final int segmentBytes;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    // record id of the pending event of an entry
+    private final Map<String, Long> pendingByEntryId = new HashMap<>();
+    // segment and offset of every pending record, in append order
+    private final TreeMap<Long, Long> handleByRecordId = new TreeMap<>();
+    private final ScheduledExecutorService compactor;
+    private Segment active;
+    private long nextRecordId = 1;
+
+    private static class Segment {
+
+        private int id;
+        private File file;
+        private RandomAccessFile raf;
+        private MappedByteBuffer buffer;
+        private int writePosition;
+        private int records;
+        private int pending;
+    }
+
+    public EventSpool(File directory) throws IOException {
+        this(directory, Constants.SPOOL_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens the spool in the directory, recovering the existing segments.
+     *
+     * @param directory spool directory, created if missing
+     * @param segmentBytes size of a segment file
+     * @throws IOException if the directory or a segment can not be opened
+     */
+    public EventSpool(File directory, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Spool directory " + directory + " can not be created");
+        }
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(id, openSegment(id, file, (int) file.length()));
+            }
+        }
+        for (Segment segment : segments.values()) {
+            recover(segment);
+        }
+        active = newSegment();
+        log.debug("Spool opened in {}, {} segment(s), {} pending event(s)", new Object[]{directory, segments.size(), handleByRecordId.size()});
+        compactor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(Constants.SPOOL_THREAD_NAME_PREFIX, true));
+        compactor.scheduleWithFixedDelay(this::compact, Constants.SPOOL_COMPACTION_INTERVAL_MS, Constants.SPOOL_COMPACTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private Segment openSegment(int id, File file, int size) throws IOException {
+        Segment segment = new Segment();
+        segment.id = id;
+        segment.file = file;
+        segment.raf = new RandomAccessFile(file, "rw");
+        if (segment.raf.length() < size) {
+            segment.raf.setLength(size);
+        }
+        segment.buffer = segment.raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return segment;
+    }
+
+    private Segment newSegment() throws IOException {
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Segment segment = openSegment(id, new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX), segmentBytes);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            if (length < BODY_HEADER_BYTES || BODY_HEADER_BYTES + buffer.getShort(position + RECORD_HEADER_BYTES + 8) > length) {
+                log.error("Spool segment {} has a torn record at {}, truncating it", segment.file, position);
+                buffer.putInt(position, 0);
+                break;
+            }
+            segment.records++;
+            if (checksum(buffer, position, length) != buffer.getInt(position + CHECKSUM_OFFSET)) {
+                log.error("Spool segment {} has a corrupted record at {}, skipping it", segment.file, position);
+                buffer.put(position + STATE_OFFSET, STATE_ACKED);
+            } else {
+                long recordId = buffer.getLong(position + RECORD_HEADER_BYTES);
+                nextRecordId = Math.max(nextRecordId, recordId + 1);
+                if (buffer.get(position + STATE_OFFSET) == STATE_PENDING) {
+                    segment.pending++;
+                    trackPending(recordId, readEntryId(buffer, position), handle(segment.id, position));
+                }
+            }
+            position += RECORD_HEADER_BYTES + length;
+        }
+        segment.writePosition = position;
+    }
+
+    /**
+     * Appends an event to the spool and sets its record id on the event, a
+     * pending older version of the same entry is superseded. Call
+     * {@link #sync()} before sending the event.
+     *
+     * @param event {@link TSIEvent} with its entry id
+     * @return record id of the event, to acknowledge it with
+     * @throws IOException if the event can not be written
+     */
+    public synchronized long append(TSIEvent event) throws IOException {
+        String entryId = event.getEntryId() != null ? event.getEntryId() : "";
+        long recordId = nextRecordId++;
+        writeRecord(recordId, entryId.getBytes(UTF8), mapper.writeValueAsBytes(event));
+        event.setSpoolRecordId(recordId);
+        return recordId;
+    }
+
+    private void writeRecord(long recordId, byte[] entryId, byte[] json) throws IOException {
+        int length = BODY_HEADER_BYTES + entryId.length + json.length;
+        int recordBytes = RECORD_HEADER_BYTES + length;
+        if (recordBytes > segmentBytes) {
+            throw new IOException("Event of " + recordBytes + " bytes does not fit in a spool segment");
+        }
+        if (active.writePosition + recordBytes > segmentBytes) {
+            active.buffer.force();
+            active = newSegment();
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int position = active.writePosition;
+        buffer.putLong(position + RECORD_HEADER_BYTES, recordId);
+        buffer.putShort(position + RECORD_HEADER_BYTES + 8, (short) entryId.length);
+        for (int i = 0; i < entryId.length; i++) {
+            buffer.put(position + RECORD_HEADER_BYTES + BODY_HEADER_BYTES + i, entryId[i]);
+        }
+        int jsonPosition = position + RECORD_HEADER_BYTES + BODY_HEADER_BYTES + entryId.length;
+        for (int i = 0; i < json.length; i++) {
+            buffer.put(jsonPosition + i, json[i]);
+        }
+        buffer.put(position + STATE_OFFSET, STATE_PENDING);
+        buffer.putInt(position + CHECKSUM_OFFSET, checksum(buffer, position, length));
+        buffer.putInt(position, length);
+        active.writePosition = position + recordBytes;
+        active.records++;
+        active.pending++;
+        trackPending(recordId, new String(entryId, UTF8), handle(active.id, position));
+    }
+
+    private void trackPending(long recordId, String entryId, long handle) {
+        Long previousHandle = handleByRecordId.put(recordId, handle);
+        if (previousHandle != null) {
+            // a record copied by the compaction, the copy replaces it
+            markAcked(previousHandle);
+            return;
+        }
+        if (entryId.isEmpty()) {
+            return;
+        }
+        Long previous = pendingByEntryId.put(entryId, recordId);
+        if (previous != null && previous != recordId) {
+            ack(previous);
+        }
+    }
+
+    /**
+     * Flushes the appended events to the disk.
+     */
+    public synchronized void sync() {
+        active.buffer.force();
+    }
+
+    /**
+     * Marks a pending event as acknowledged.
+     *
+     * @param recordId record id of the accepted event, see
+     * {@link TSIEvent#getSpoolRecordId()}
+     * @return true if the event was pending, false if it was already
+     * acknowledged or superseded by a newer version
+     */
+    public synchronized boolean ack(long recordId) {
+        Long handle = handleByRecordId.remove(recordId);
+        if (handle == null) {
+            return false;
+        }
+        markAcked(handle);
+        Segment segment = segments.get(segmentId(handle));
+        if (segment != null) {
+            String entryId = readEntryId(segment.buffer, offset(handle));
+            pendingByEntryId.remove(entryId, recordId);
+        }
+        return true;
+    }
+
+    private void markAcked(long handle) {
+        Segment segment = segments.get(segmentId(handle));
+        if (segment != null) {
+            segment.buffer.put(offset(handle) + STATE_OFFSET, STATE_ACKED);
+            segment.pending--;
+        }
+    }
+
+    /**
+     * Reads back the pending events, ie the events which were spooled but not
+     * acknowledged, appended after the given record id. At most maxEvents
+     * events are returned, in the order they were appended, so that a large
+     * backlog can be read in chunks. An event which can not be parsed is
+     * logged and acknowledged, so that it does not fail every resume.
+     *
+     * @param afterRecordId record id of the last event already read, 0 to
+     * read from the first pending event
+     * @param maxEvents maximum no of events returned
+     * @return list of pending {@link TSIEvent} with their entry ids and
+     * record ids, empty once all the pending events are read
+     */
+    public synchronized List<TSIEvent> getPendingEvents(long afterRecordId, int maxEvents) {
+        List<TSIEvent> events = new ArrayList<>(Math.min(maxEvents, handleByRecordId.size()));
+        List<Long> unreadable = new ArrayList<>();
+        Iterator<Map.Entry<Long, Long>> pending = handleByRecordId.tailMap(afterRecordId, false).entrySet().iterator();
+        while (events.size() < maxEvents && pending.hasNext()) {
+            Map.Entry<Long, Long> record = pending.next();
+            MappedByteBuffer buffer = segments.get(segmentId(record.getValue())).buffer;
+            int position = offset(record.getValue());
+            String entryId = readEntryId(buffer, position);
+            try {
+                TSIEvent event = mapper.readValue(readJson(buffer, position, buffer.getInt(position)), TSIEvent.class);
+                event.setEntryId(entryId.isEmpty() ? null : entryId);
+                event.setSpoolRecordId(record.getKey());
+                events.add(event);
+            } catch (IOException e) {
+                log.error("Spooled event of entry {} can not be read, skipping it, {}", entryId, e.getMessage());
+                unreadable.add(record.getKey());
+            }
+        }
+        for (Long recordId : unreadable) {
+            ack(recordId);
+        }
+        return events;
+    }
+
+    public synchronized int getPendingCount() {
+        return handleByRecordId.size();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Deletes the segments without pending events and moves the pending
+     * events of sparse segments to the active segment.
+     */
+    synchronized void compact() {
+        try {
+            List<Segment> candidates = new ArrayList<>(segments.values());
+            for (Segment segment : candidates) {
+                if (segment == active) {
+                    continue;
+                }
+                if (segment.pending > 0 && segment.pending >= segment.records * Constants.SPOOL_COMPACTION_LIVE_RATIO) {
+                    continue;
+                }
+                int position = 0;
+                while (segment.pending > 0 && position < segment.writePosition) {
+                    int length = segment.buffer.getInt(position);
+                    if (segment.buffer.get(position + STATE_OFFSET) == STATE_PENDING) {
+                        String entryId = readEntryId(segment.buffer, position);
+                        // the pending handle moves to the copy, which keeps the record id
+                        writeRecord(segment.buffer.getLong(position + RECORD_HEADER_BYTES), entryId.getBytes(UTF8), readJson(segment.buffer, position, length));
+                    }
+                    position += RECORD_HEADER_BYTES + length;
+                }
+                active.buffer.force();
+                deleteSegment(segment);
+            }
+        } catch (IOException e) {
+            log.error("Spool compaction failed, {}", e.getMessage());
+        }
+    }
+
+    private void deleteSegment(Segment segment) throws IOException {
+        segments.remove(segment.id);
+        segment.raf.close();
+        segment.buffer = null;
+        if (!segment.file.delete()) {
+            log.debug("Spool segment {} could not be deleted", segment.file);
+        }
+    }
+
+    private String readEntryId(MappedByteBuffer buffer, int position) {
+        int idLength = buffer.getShort(position + RECORD_HEADER_BYTES + 8);
+        byte[] id = new byte[idLength];
+        for (int i = 0; i < idLength; i++) {
+            id[i] = buffer.get(position + RECORD_HEADER_BYTES + BODY_HEADER_BYTES + i);
+        }
+        return new String(id, UTF8);
+    }
+
+    private byte[] readJson(MappedByteBuffer buffer, int position, int length) {
+        int idLength = buffer.getShort(position + RECORD_HEADER_BYTES + 8);
+        int jsonLength = length - BODY_HEADER_BYTES - idLength;
+        int jsonPosition = position + RECORD_HEADER_BYTES + BODY_HEADER_BYTES + idLength;
+        byte[] json = new byte[jsonLength];
+        for (int i = 0; i < jsonLength; i++) {
+            json[i] = buffer.get(jsonPosition + i);
+        }
+        return json;
+    }
+
+    /**
+     * CRC32 of the body of a record, the state is not covered as it changes
+     * once the record is written.
+     */
+    private static int checksum(MappedByteBuffer buffer, int position, int length) {
+        CRC32 crc = new CRC32();
+        int bodyPosition = position + RECORD_HEADER_BYTES;
+        for (int i = 0; i < length; i++) {
+            crc.update(buffer.get(bodyPosition + i));
+        }
+        return (int) crc.getValue();
+    }
+
+    private static long handle(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xffffffffL);
+    }
+
+    private static int segmentId(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    private static int offset(long handle) {
+        return (int) handle;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        compactor.shutdownNow();
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.raf.close();
+        }
+    }
+}
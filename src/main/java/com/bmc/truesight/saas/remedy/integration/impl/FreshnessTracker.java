@@ -0,0 +1,124 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.beans.Accepted;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.util.EventFingerprint;
+import com.bmc.truesight.saas.remedy.integration.util.LatencyHistogram;
+import com.bmc.truesight.saas.remedy.integration.util.Metrics;
+
+/**
+ * This class measures the freshness of the ingestion: the lag of every event
+ * accepted by TSI, from the Last_Modified_Date of its ticket to the time the
+ * batch result is received. The lags are recorded per form, in milliseconds,
+ * in a {@link LatencyHistogram}, along with the maximum lag of the latest
+ * batch, which is the current staleness of the form. The lags are also
+ * recorded as {@link Metric#FRESHNESS_LAG} in the metrics registry.
+ * <p>
+ * The Last_Modified_Date property is mandatory in the templates, it holds the
+ * epoch milliseconds of the ticket. Events without a parsable value are not
+ * measured.
+ *
+ * @author vitiwari
+ */
+public class FreshnessTracker {
+
+    private final Map<ARServerForm, FormFreshness> forms = new ConcurrentHashMap<>();
+
+    private static class FormFreshness {
+
+        private final LatencyHistogram lags = new LatencyHistogram();
+        private volatile long currentMaxLagMs;
+    }
+
+    /**
+     * Records the lag of the accepted events of a batch, the batch must carry
+     * its events.
+     *
+     * @param form {@link ARServerForm} the events were read from
+     * @param batchResult {@link BatchResult} of the batch
+     */
+    public void onBatchComplete(ARServerForm form, BatchResult batchResult) {
+        if (batchResult.getResult() == null || batchResult.getResult().getAccepted() == null) {
+            return;
+        }
+        long acceptedAt = System.currentTimeMillis();
+        FormFreshness freshness = forms.computeIfAbsent(form, key -> new FormFreshness());
+        long batchMaxLagMs = -1;
+        for (Accepted accepted : batchResult.getResult().getAccepted()) {
+            TSIEvent event = batchResult.getEvent(accepted.getIndex());
+            long lastModified = event != null ? EventFingerprint.getLastModified(event) : Long.MIN_VALUE;
+            if (lastModified == Long.MIN_VALUE) {
+                continue;
+            }
+            // clock skew between Remedy and this host can not make an event fresher than 0
+            long lagMs = Math.max(0, acceptedAt - lastModified);
+            freshness.lags.record(lagMs);
+            Metrics.getRegistry().recordNanos(Metric.FRESHNESS_LAG, TimeUnit.MILLISECONDS.toNanos(lagMs));
+            batchMaxLagMs = Math.max(batchMaxLagMs, lagMs);
+        }
+        if (batchMaxLagMs >= 0) {
+            freshness.currentMaxLagMs = batchMaxLagMs;
+        }
+    }
+
+    /**
+     * Returns a listener which records the freshness of the batches before
+     * passing them to the given listener.
+     *
+     * @param form {@link ARServerForm} the events are read from
+     * @param listener {@link IngestionListener} receiving the batch results
+     * @return {@link IngestionListener} to pass to the ingestion
+     */
+    public IngestionListener wrap(ARServerForm form, IngestionListener listener) {
+        return new IngestionListener() {
+            @Override
+            public void onBatchComplete(BatchResult batchResult) {
+                FreshnessTracker.this.onBatchComplete(form, batchResult);
+                listener.onBatchComplete(batchResult);
+            }
+
+            @Override
+            public void onInvalidEvent(InvalidEvent invalidEvent) {
+                listener.onInvalidEvent(invalidEvent);
+            }
+        };
+    }
+
+    /**
+     * @param form {@link ARServerForm}
+     * @return histogram of the lags of the form in milliseconds, null if no
+     * event of the form was accepted yet
+     */
+    public LatencyHistogram getLagHistogram(ARServerForm form) {
+        FormFreshness freshness = forms.get(form);
+        return freshness != null ? freshness.lags : null;
+    }
+
+    /**
+     * @param form {@link ARServerForm}
+     * @return maximum lag in milliseconds of the latest batch of the form, 0
+     * if no event of the form was accepted yet
+     */
+    public long getCurrentMaxLagMs(ARServerForm form) {
+        FormFreshness freshness = forms.get(form);
+        return freshness != null ? freshness.currentMaxLagMs : 0;
+    }
+
+    /**
+     * @param form {@link ARServerForm}
+     * @return maximum lag in milliseconds since the tracker was created
+     */
+    public long getMaxLagMs(ARServerForm form) {
+        FormFreshness freshness = forms.get(form);
+        return freshness != null ? freshness.lags.getMax() : 0;
+    }
+}
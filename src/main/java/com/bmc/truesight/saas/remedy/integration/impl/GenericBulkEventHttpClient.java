@@ -4,14 +4,13 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.nio.charset.Charset;
 import java.util.List;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,11 +18,14 @@ import org.slf4j.LoggerFactory;
 import com.bmc.thirdparty.org.apache.commons.codec.binary.Base64;
 import com.bmc.truesight.saas.remedy.integration.BulkEventHttpClient;
 import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
 import com.bmc.truesight.saas.remedy.integration.beans.Result;
 import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
 import com.bmc.truesight.saas.remedy.integration.beans.TSIEventResponse;
 import com.bmc.truesight.saas.remedy.integration.exception.BulkEventsIngestionFailedException;
 import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.FlightRecorder;
+import com.bmc.truesight.saas.remedy.integration.util.Metrics;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -48,6 +50,17 @@ public class GenericBulkEventHttpClient implements BulkEventHttpClient {
         HttpClient httpClient = null;
         boolean isSuccessful = false;
         int retryCount = 0;
+        ObjectMapper mapper = new ObjectMapper();
+        // serialized once, the payload is the same for every attempt
+        byte[] payload;
+        try {
+            long start = System.nanoTime();
+            payload = mapper.writeValueAsBytes(bulkEvents);
+            Metrics.recordSince(Metric.SERIALIZATION, start);
+        } catch (Exception e) {
+            LOG.error("Can not Send events, There is an issue in creating http request data [{}]", e.getMessage());
+            throw new BulkEventsIngestionFailedException(e.getMessage());
+        }
         while (!isSuccessful && retryCount <= this.configuration.getRetryConfig()) {
             httpClient = HttpClientBuilder.create().build();
             HttpPost httpPost = new HttpPost(this.configuration.getTsiEventEndpoint());
@@ -55,24 +68,20 @@ public class GenericBulkEventHttpClient implements BulkEventHttpClient {
             httpPost.addHeader("Content-Type", "application/json");
             httpPost.addHeader("accept", "application/json");
             httpPost.addHeader("User-Agent", "RemedyScript");
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonInString = null;
-            try {
-                jsonInString = mapper.writeValueAsString(bulkEvents);
-                Charset charsetD = Charset.forName("UTF-8");
-                StringEntity postingString = new StringEntity(jsonInString, charsetD);
-                httpPost.setEntity(postingString);
-            } catch (Exception e) {
-                LOG.error("Can not Send events, There is an issue in creating http request data [{}]", e.getMessage());
-                throw new BulkEventsIngestionFailedException(e.getMessage());
-            }
+            httpPost.setEntity(new ByteArrayEntity(payload));
             HttpResponse response;
+            Object postEvent = FlightRecorder.TSI_POST.begin();
             try {
+                Metrics.increment(Metric.BYTES_SENT, payload.length);
+                long start = System.nanoTime();
                 response = httpClient.execute(httpPost);
+                Metrics.recordSince(Metric.HTTP_ROUND_TRIP, start);
             } catch (Exception e) {
+                FlightRecorder.TSI_POST.commit(postEvent, bulkEvents.size(), (long) payload.length, 0, retryCount);
                 LOG.error("Sending Event resulted into an exception [{}]", e.getMessage());
                 if (retryCount < this.configuration.getRetryConfig()) {
                     retryCount++;
+                    Metrics.increment(Metric.HTTP_RETRIES, 1);
                     try {
                         LOG.info("[Retry  {} ], Waiting for {} sec before trying again ......", retryCount, (this.configuration.getWaitMsBeforeRetry() / 1000));
                         Thread.sleep(this.configuration.getWaitMsBeforeRetry());
@@ -86,9 +95,11 @@ public class GenericBulkEventHttpClient implements BulkEventHttpClient {
             }
 
             int statusCode = response.getStatusLine().getStatusCode();
+            FlightRecorder.TSI_POST.commit(postEvent, bulkEvents.size(), (long) payload.length, statusCode, retryCount);
             if (statusCode != Constants.EVENT_INGESTION_STATE_SUCCESS && statusCode != Constants.EVENT_INGESTION_STATE_ACCEPTED) {
                 if (retryCount < this.configuration.getRetryConfig()) {
                     retryCount++;
+                    Metrics.increment(Metric.HTTP_RETRIES, 1);
                     LOG.error("Sending Event did not result in success, response status Code : {} , {}", new Object[]{response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase()});
                     try {
                         LOG.info("[Retry  {} ], Waiting for {} sec before trying again ......", retryCount, (this.configuration.getWaitMsBeforeRetry() / 1000));
@@ -109,6 +120,9 @@ public class GenericBulkEventHttpClient implements BulkEventHttpClient {
                         String resultJson = convertStreamToString(instream);
                         TSIEventResponse eventResponse = mapper.readValue(resultJson, TSIEventResponse.class);
                         result = eventResponse.getResult();
+                        Metrics.increment(Metric.EVENTS_SENT, bulkEvents.size());
+                        Metrics.increment(Metric.EVENTS_ACCEPTED, result.getAccepted() != null ? result.getAccepted().size() : 0);
+                        Metrics.increment(Metric.EVENTS_REJECTED, result.getErrors() != null ? result.getErrors().size() : 0);
                         LOG.debug("Response from event ingestion API Sent:{},succeful:{},error:{}", result.getSent(), result.getAccepted() != null ? result.getAccepted().size() : 0, result.getErrors() != null ? result.getErrors().size() : 0);
                         isSuccessful = true;
                     } catch (UnsupportedOperationException e) {
@@ -13,7 +13,6 @@ import org.slf4j.LoggerFactory;
 
 import com.bmc.arsys.api.ARErrors;
 import com.bmc.arsys.api.ARException;
-import com.bmc.arsys.api.ARServerUser;
 import com.bmc.arsys.api.ArithmeticOrRelationalOperand;
 import com.bmc.arsys.api.DataType;
 import com.bmc.arsys.api.Entry;
@@ -25,45 +24,62 @@ import com.bmc.arsys.api.SortInfo;
 import com.bmc.arsys.api.StatusInfo;
 import com.bmc.arsys.api.Timestamp;
 import com.bmc.arsys.api.Value;
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
 import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.ARServerUserContext;
+import com.bmc.truesight.saas.remedy.integration.RemedyEntryReader;
 import com.bmc.truesight.saas.remedy.integration.RemedyReader;
 import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
 import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
 import com.bmc.truesight.saas.remedy.integration.beans.RemedyEventResponse;
 import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
 import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.beans.Watermark;
 import com.bmc.truesight.saas.remedy.integration.exception.RemedyLoginFailedException;
 import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedException;
 import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.FlightRecorder;
+import com.bmc.truesight.saas.remedy.integration.util.Metrics;
 import com.bmc.truesight.saas.remedy.integration.util.StringUtil;
 
 /**
- * This class is a generic implementation of {@link RemedyReader}.
+ * This class is a generic implementation of {@link RemedyReader} and
+ * {@link RemedyEntryReader}.
  *
  * @author vitiwari
  *
  */
-public class GenericRemedyReader implements RemedyReader {
+public class GenericRemedyReader implements RemedyEntryReader {
 
     private static final Logger log = LoggerFactory.getLogger(GenericRemedyReader.class);
     private static final Integer STATUS_FIELD_ID = 7;
     private static final Integer INCIDENT_STATUS_CLOSED = 5;
     private static final Integer CHANGE_STATUS_CLOSED = 11;
 
+    private volatile MappingProfiler mappingProfiler;
+
+    /**
+     * Profiles every event converted by this reader, null to stop profiling.
+     *
+     * @param mappingProfiler {@link MappingProfiler} aggregating the property
+     * sizes and empty values
+     */
+    public void setMappingProfiler(MappingProfiler mappingProfiler) {
+        this.mappingProfiler = mappingProfiler;
+    }
+
+    public MappingProfiler getMappingProfiler() {
+        return mappingProfiler;
+    }
+
     @Override
-    public ARServerUser createARServerContext(String hostName, Integer port, String userName, String password) {
-        ARServerUser arServerContext = new ARServerUser();
-        arServerContext.setServer(hostName);
-        if (port != null) {
-            arServerContext.setPort(port);
-        }
-        arServerContext.setUser(userName);
-        arServerContext.setPassword(password);
-        return arServerContext;
+    public ARServerContext createServerContext(String hostName, Integer port, String userName, String password) {
+        return new ARServerUserContext(createARServerContext(hostName, port, userName, password));
     }
 
     @Override
-    public boolean login(ARServerUser arServerContext) throws RemedyLoginFailedException {
+    public boolean login(ARServerContext arServerContext) throws RemedyLoginFailedException {
         try {
             arServerContext.login();
             log.info("Login successful to remedy server");
@@ -74,8 +90,13 @@ public class GenericRemedyReader implements RemedyReader {
     }
 
     @Override
-    public RemedyEventResponse readRemedyTickets(ARServerUser arServerContext, ARServerForm formName, Template template, int startFrom, int chunkSize, OutputInteger recordsCount, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException {
-        RemedyEventResponse response = new RemedyEventResponse();
+    public RemedyEventResponse readRemedyTickets(ARServerContext arServerContext, ARServerForm formName, Template template, int startFrom, int chunkSize, OutputInteger recordsCount, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException {
+        List<Entry> entryList = readRemedyEntries(arServerContext, formName, template, startFrom, chunkSize, recordsCount);
+        return convertEntries(template, entryList, adapter);
+    }
+
+    @Override
+    public List<Entry> readRemedyEntries(ARServerContext arServerContext, ARServerForm formName, Template template, int startFrom, int chunkSize, OutputInteger recordsCount) throws RemedyReadFailedException {
         //keeping as set to avoid duplicates
         Set<Integer> fieldsList = new HashSet<>();
         log.debug("Reading Remedy tickets,total no of FieldDefinitionMap elements is =>{}", template.getFieldDefinitionMap().size());
@@ -111,96 +132,50 @@ public class GenericRemedyReader implements RemedyReader {
             }
         }
         log.debug("Condition 1: Values of fields {} should fall in date {}, {}", template.getConfig().getConditionFields(), template.getConfig().getStartDateTime(), template.getConfig().getEndDateTime());
-        //Status Query list
-        List<Integer> queryStatusList = template.getConfig().getQueryStatusList();
-        //If there is no statusQueryList Configured then create qualifier for Closed status
-        if (queryStatusList == null || queryStatusList.isEmpty()) {
-            QualifierInfo qualInfoStatus = null;
-            if (formName == ARServerForm.INCIDENT_FORM) {
-                qualInfoStatus = buildFieldValueQualification(STATUS_FIELD_ID,
-                        new Value(INCIDENT_STATUS_CLOSED, DataType.INTEGER), RelationalOperationInfo.AR_REL_OP_EQUAL);
-                log.debug("Condition 2: Status values -> {}", INCIDENT_STATUS_CLOSED);
-            } else if (formName == ARServerForm.CHANGE_FORM) {
-                qualInfoStatus = buildFieldValueQualification(STATUS_FIELD_ID,
-                        new Value(CHANGE_STATUS_CLOSED, DataType.INTEGER), RelationalOperationInfo.AR_REL_OP_EQUAL);
-                log.debug("Condition 2: Status values -> {}", CHANGE_STATUS_CLOSED);
-            }
-            qualInfoF = new QualifierInfo(QualifierInfo.AR_COND_OP_AND, qualInfoF, qualInfoStatus);
-
-        } else {
-            //else statusQueryList Configured, created Qualifier accordingly
-            QualifierInfo qualInfoStatusF = null;
-            QualifierInfo qualInfoStatus = null;
-            for (int status : queryStatusList) {
-                qualInfoStatus = buildFieldValueQualification(STATUS_FIELD_ID,
-                        new Value(status, DataType.INTEGER), RelationalOperationInfo.AR_REL_OP_EQUAL);
-                if (qualInfoStatusF != null) {
-                    qualInfoStatusF = new QualifierInfo(QualifierInfo.AR_COND_OP_OR, qualInfoStatusF, qualInfoStatus);
-                } else {
-                    qualInfoStatusF = qualInfoStatus;
-                }
-            }
-            qualInfoF = new QualifierInfo(QualifierInfo.AR_COND_OP_AND, qualInfoF, qualInfoStatusF);
-            log.debug("Condition 2: Status values -> {}", queryStatusList);
-        }
+        qualInfoF = new QualifierInfo(QualifierInfo.AR_COND_OP_AND, qualInfoF, buildStatusQualification(formName, template));
         log.debug("Qualifier making completed, about to start making the call");
-        List<SortInfo> sortOrder = new ArrayList<SortInfo>();
-        List<Entry> entryList = new ArrayList<>();
-        boolean isSuccessful = false;
-        int retryCount = 0;
-        while (!isSuccessful && retryCount <= template.getConfig().getRetryConfig()) {
-            try {
-                entryList = arServerContext.getListEntryObjects(formName.toString(), qualInfoF,
-                        startFrom, chunkSize, sortOrder, queryFieldsList, false, recordsCount);
-                isSuccessful = true;
-                log.debug("Recieved {} tickets  for starting index : {}, chunk size {}  ", new Object[]{entryList.size(), startFrom, chunkSize});
-            } catch (ARException e) {
-                if (retryCount < template.getConfig().getRetryConfig()) {
-                    retryCount++;
-                    log.debug("Reading  {} tickets from {} resulted into exception[{}], Re-trying for {} time", new Object[]{chunkSize, startFrom, e.getMessage(), retryCount});
-                    try {
-                        log.debug("Waiting for {} sec before trying again ......", (template.getConfig().getWaitMsBeforeRetry() / 1000));
-                        Thread.sleep(template.getConfig().getWaitMsBeforeRetry());
-                    } catch (InterruptedException e1) {
-                    }
-
-                    continue;
-                } else {
-                    log.debug("Skipping the read process, Reading tickets Failed for starting : {}, chunk size {} even after retrying for {} times", new Object[]{startFrom, chunkSize, retryCount});
-                    throw new RemedyReadFailedException(e.getMessage()+", Skipping the read process, Reading tickets Failed for starting : " + startFrom + ", chunk size " + chunkSize + " even after retrying for " + retryCount + " times");
+        return getEntries(arServerContext, formName, template, qualInfoF, startFrom, chunkSize, new ArrayList<SortInfo>(), queryFieldsList, recordsCount);
+    }
 
-                }
-            }
-        }
-        List<TSIEvent> payloadList = new ArrayList<TSIEvent>();
-        List<InvalidEvent> invalidEventList = new ArrayList<InvalidEvent>();
-        int largeEventCount = 0;
-        if (adapter == null) {
-            throw new RemedyReadFailedException("Adapter instance is null, it should not be null");
-        }
-        for (Entry entry : entryList) {
-            TSIEvent event = adapter.convertEntryToEvent(template, entry);
-            InvalidEvent invalidEvent = new InvalidEvent(entry.getEntryId());
-            if (StringUtil.isObjectJsonSizeAllowed(event, invalidEvent)) {
-                payloadList.add(event);
-            } else {
-                invalidEventList.add(invalidEvent);
-                largeEventCount++;
+    @Override
+    public List<Entry> readRemedyEntriesSince(ARServerContext arServerContext, ARServerForm formName, Template template, Watermark watermark, int chunkSize, OutputInteger recordsCount) throws RemedyReadFailedException {
+        //keeping as set to avoid duplicates
+        Set<Integer> fieldsList = new HashSet<>();
+        template.getEventDefinition().getProperties().entrySet().forEach(propEntry -> {
+            if (propEntry.getValue().startsWith("@")) {
+                fieldsList.add(template.getFieldDefinitionMap().get(propEntry.getValue()).getFieldId());
             }
+        });
+        // the watermark is taken from these fields
+        fieldsList.add(Constants.REQUEST_ID_FIELD_ID);
+        fieldsList.add(Constants.LAST_MODIFIED_DATE_FIELD_ID);
+        int[] queryFieldsList = new int[fieldsList.size()];
+        int index = 0;
+        for (Integer i : fieldsList) {
+            queryFieldsList[index++] = i;
         }
-        if (largeEventCount > 0) {
-            log.debug("{} event(s) dropped before sending to TSI, size of event is greater than allowed limit({} Bytes). Please review the field mapping", new Object[]{largeEventCount, Constants.MAX_EVENT_SIZE_ALLOWED_BYTES});
+        // Last_Modified_Date > watermark OR (Last_Modified_Date = watermark AND Request ID > watermark entry id)
+        Value lastModified = new Value(new Timestamp(watermark.getLastModified()), DataType.TIME);
+        QualifierInfo modifiedAfter = buildFieldValueQualification(Constants.LAST_MODIFIED_DATE_FIELD_ID, lastModified, RelationalOperationInfo.AR_REL_OP_GREATER);
+        QualifierInfo qualInfoF = modifiedAfter;
+        if (watermark.getEntryId() != null) {
+            QualifierInfo sameSecond = new QualifierInfo(QualifierInfo.AR_COND_OP_AND,
+                    buildFieldValueQualification(Constants.LAST_MODIFIED_DATE_FIELD_ID, lastModified, RelationalOperationInfo.AR_REL_OP_EQUAL),
+                    buildFieldValueQualification(Constants.REQUEST_ID_FIELD_ID, new Value(watermark.getEntryId()), RelationalOperationInfo.AR_REL_OP_GREATER));
+            qualInfoF = new QualifierInfo(QualifierInfo.AR_COND_OP_OR, modifiedAfter, sameSecond);
         }
-        response.setValidEventList(payloadList);
-        response.setInvalidEventList(invalidEventList);
-
-        return response;
+        log.debug("Condition 1: Entries modified after the watermark {}", watermark);
+        qualInfoF = new QualifierInfo(QualifierInfo.AR_COND_OP_AND, qualInfoF, buildStatusQualification(formName, template));
+        List<SortInfo> sortOrder = new ArrayList<SortInfo>();
+        sortOrder.add(new SortInfo(Constants.LAST_MODIFIED_DATE_FIELD_ID, com.bmc.arsys.api.Constants.AR_SORT_ASCENDING));
+        sortOrder.add(new SortInfo(Constants.REQUEST_ID_FIELD_ID, com.bmc.arsys.api.Constants.AR_SORT_ASCENDING));
+        // always the first page, the watermark moves instead of the offset
+        return getEntries(arServerContext, formName, template, qualInfoF, 0, chunkSize, sortOrder, queryFieldsList, recordsCount);
     }
 
     @Override
-    public RemedyEventResponse readRemedyTicketsWithId(ARServerUser arServerContext, ARServerForm formName, Template template, List<String> ids, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException {
+    public RemedyEventResponse readRemedyTicketsWithId(ARServerContext arServerContext, ARServerForm formName, Template template, List<String> ids, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException {
 
-        RemedyEventResponse response = new RemedyEventResponse();
         //keeping as set to avoid duplicates
         Set<Integer> fieldsList = new HashSet<>();
         log.debug("template has {} FieldDefinitionMap", template.getFieldDefinitionMap().size());
@@ -222,13 +197,20 @@ public class GenericRemedyReader implements RemedyReader {
         boolean isSuccessful = false;
         int retryCount = 0;
         while (!isSuccessful && retryCount <= template.getConfig().getRetryConfig()) {
+            Object fetchEvent = FlightRecorder.AR_FETCH.begin();
             try {
+                long start = System.nanoTime();
                 entryList = arServerContext.getListEntryObjects(formName.toString(), ids, queryFieldsList);
+                Metrics.recordSince(Metric.AR_FETCH, start);
+                Metrics.increment(Metric.AR_ENTRIES_READ, entryList.size());
+                FlightRecorder.AR_FETCH.commit(fetchEvent, formName.toString(), -1, ids.size(), entryList.size(), retryCount, null);
                 isSuccessful = true;
                 log.debug("Recieved {} tickets  for {} entry ids  ", new Object[]{entryList.size(), ids.size()});
             } catch (ARException e) {
+                FlightRecorder.AR_FETCH.commit(fetchEvent, formName.toString(), -1, ids.size(), 0, retryCount, e.getMessage());
                 if (retryCount < template.getConfig().getRetryConfig()) {
                     retryCount++;
+                    Metrics.increment(Metric.AR_RETRIES, 1);
                     log.debug("Reading  {} tickets for {} entry ids  resulted into exception[{}], Re-trying for {} time", entryList.size(), ids.size(), e.getMessage(), retryCount);
                     try {
                         log.debug("Waiting for {} sec before trying again ......", (template.getConfig().getWaitMsBeforeRetry() / 1000));
@@ -243,23 +225,44 @@ public class GenericRemedyReader implements RemedyReader {
                 }
             }
         }
+        return convertEntries(template, entryList, adapter);
+    }
+
+    @Override
+    public RemedyEventResponse convertEntries(Template template, List<Entry> entryList, RemedyEntryEventAdapter adapter) throws RemedyReadFailedException {
+        RemedyEventResponse response = new RemedyEventResponse();
         List<TSIEvent> payloadList = new ArrayList<TSIEvent>();
         List<InvalidEvent> invalidEventList = new ArrayList<InvalidEvent>();
         int largeEventCount = 0;
         if (adapter == null) {
             throw new RemedyReadFailedException("Adapter instance is null, it should not be null");
         }
+        MappingProfiler profiler = mappingProfiler;
+        Object conversionEvent = FlightRecorder.CONVERSION.begin();
         for (Entry entry : entryList) {
+            long start = System.nanoTime();
             TSIEvent event = adapter.convertEntryToEvent(template, entry);
+            event.setEntryId(entry.getEntryId());
+            Metrics.recordSince(Metric.CONVERSION, start);
+            long converted = System.nanoTime();
             InvalidEvent invalidEvent = new InvalidEvent(entry.getEntryId());
-            if (StringUtil.isObjectJsonSizeAllowed(event, invalidEvent)) {
+            boolean allowed = StringUtil.isObjectJsonSizeAllowed(event, invalidEvent);
+            Metrics.recordSince(Metric.SIZE_CHECK, converted);
+            if (profiler != null) {
+                profiler.record(template, event);
+            }
+            if (allowed) {
                 payloadList.add(event);
             } else {
                 invalidEventList.add(invalidEvent);
                 largeEventCount++;
+                Object dropEvent = FlightRecorder.OVERSIZE_DROP.begin();
+                FlightRecorder.OVERSIZE_DROP.commit(dropEvent, entry.getEntryId(), invalidEvent.getEventSize(), invalidEvent.getMaxSizePropertyName(), invalidEvent.getPropertySize());
             }
         }
+        FlightRecorder.CONVERSION.commit(conversionEvent, entryList.size(), payloadList.size(), largeEventCount);
         if (largeEventCount > 0) {
+            Metrics.increment(Metric.EVENTS_TOO_LARGE, largeEventCount);
             log.debug("{} event(s) dropped before sending to TSI, size of event is greater than allowed limit({} Bytes). Please review the field mapping", new Object[]{largeEventCount, Constants.MAX_EVENT_SIZE_ALLOWED_BYTES});
         }
         response.setValidEventList(payloadList);
@@ -268,7 +271,7 @@ public class GenericRemedyReader implements RemedyReader {
     }
 
     @Override
-    public boolean exceededMaxServerEntries(ARServerUser arServerContext) {
+    public boolean exceededMaxServerEntries(ARServerContext arServerContext) {
         boolean returnVal = false;
         List<StatusInfo> messages = arServerContext.getLastStatus();
         if (messages != null && messages.size() > 0) {
@@ -287,6 +290,88 @@ public class GenericRemedyReader implements RemedyReader {
         return returnVal;
     }
 
+    /**
+     * Prepare the status qualification, closed tickets if no queryStatusList
+     * is configured
+     *
+     * @return QualifierInfo
+     */
+    private QualifierInfo buildStatusQualification(ARServerForm formName, Template template) {
+        QualifierInfo statusQualification = null;
+        //Status Query list
+        List<Integer> queryStatusList = template.getConfig().getQueryStatusList();
+        //If there is no statusQueryList Configured then create qualifier for Closed status
+        if (queryStatusList == null || queryStatusList.isEmpty()) {
+            QualifierInfo qualInfoStatus = null;
+            if (formName == ARServerForm.INCIDENT_FORM) {
+                qualInfoStatus = buildFieldValueQualification(STATUS_FIELD_ID,
+                        new Value(INCIDENT_STATUS_CLOSED, DataType.INTEGER), RelationalOperationInfo.AR_REL_OP_EQUAL);
+                log.debug("Condition 2: Status values -> {}", INCIDENT_STATUS_CLOSED);
+            } else if (formName == ARServerForm.CHANGE_FORM) {
+                qualInfoStatus = buildFieldValueQualification(STATUS_FIELD_ID,
+                        new Value(CHANGE_STATUS_CLOSED, DataType.INTEGER), RelationalOperationInfo.AR_REL_OP_EQUAL);
+                log.debug("Condition 2: Status values -> {}", CHANGE_STATUS_CLOSED);
+            }
+            statusQualification = qualInfoStatus;
+
+        } else {
+            //else statusQueryList Configured, created Qualifier accordingly
+            QualifierInfo qualInfoStatusF = null;
+            QualifierInfo qualInfoStatus = null;
+            for (int status : queryStatusList) {
+                qualInfoStatus = buildFieldValueQualification(STATUS_FIELD_ID,
+                        new Value(status, DataType.INTEGER), RelationalOperationInfo.AR_REL_OP_EQUAL);
+                if (qualInfoStatusF != null) {
+                    qualInfoStatusF = new QualifierInfo(QualifierInfo.AR_COND_OP_OR, qualInfoStatusF, qualInfoStatus);
+                } else {
+                    qualInfoStatusF = qualInfoStatus;
+                }
+            }
+            statusQualification = qualInfoStatusF;
+            log.debug("Condition 2: Status values -> {}", queryStatusList);
+        }
+        return statusQualification;
+    }
+
+    private List<Entry> getEntries(ARServerContext arServerContext, ARServerForm formName, Template template, QualifierInfo qualInfoF, int startFrom, int chunkSize,
+            List<SortInfo> sortOrder, int[] queryFieldsList, OutputInteger recordsCount) throws RemedyReadFailedException {
+        List<Entry> entryList = new ArrayList<>();
+        boolean isSuccessful = false;
+        int retryCount = 0;
+        while (!isSuccessful && retryCount <= template.getConfig().getRetryConfig()) {
+            Object fetchEvent = FlightRecorder.AR_FETCH.begin();
+            try {
+                long start = System.nanoTime();
+                entryList = arServerContext.getListEntryObjects(formName.toString(), qualInfoF,
+                        startFrom, chunkSize, sortOrder, queryFieldsList, false, recordsCount);
+                Metrics.recordSince(Metric.AR_FETCH, start);
+                Metrics.increment(Metric.AR_ENTRIES_READ, entryList.size());
+                FlightRecorder.AR_FETCH.commit(fetchEvent, formName.toString(), startFrom, chunkSize, entryList.size(), retryCount, null);
+                isSuccessful = true;
+                log.debug("Recieved {} tickets  for starting index : {}, chunk size {}  ", new Object[]{entryList.size(), startFrom, chunkSize});
+            } catch (ARException e) {
+                FlightRecorder.AR_FETCH.commit(fetchEvent, formName.toString(), startFrom, chunkSize, 0, retryCount, e.getMessage());
+                if (retryCount < template.getConfig().getRetryConfig()) {
+                    retryCount++;
+                    Metrics.increment(Metric.AR_RETRIES, 1);
+                    log.debug("Reading  {} tickets from {} resulted into exception[{}], Re-trying for {} time", new Object[]{chunkSize, startFrom, e.getMessage(), retryCount});
+                    try {
+                        log.debug("Waiting for {} sec before trying again ......", (template.getConfig().getWaitMsBeforeRetry() / 1000));
+                        Thread.sleep(template.getConfig().getWaitMsBeforeRetry());
+                    } catch (InterruptedException e1) {
+                    }
+
+                    continue;
+                } else {
+                    log.debug("Skipping the read process, Reading tickets Failed for starting : {}, chunk size {} even after retrying for {} times", new Object[]{startFrom, chunkSize, retryCount});
+                    throw new RemedyReadFailedException(e.getMessage()+", Skipping the read process, Reading tickets Failed for starting : " + startFrom + ", chunk size " + chunkSize + " even after retrying for " + retryCount + " times");
+
+                }
+            }
+        }
+        return entryList;
+    }
+
     /**
      * Prepare qualification
      *
@@ -302,13 +387,13 @@ public class GenericRemedyReader implements RemedyReader {
     }
 
     @Override
-    public void logout(ARServerUser arServerContext) {
+    public void logout(ARServerContext arServerContext) {
         arServerContext.logout();
         log.info("Logout successful from remedy server");
     }
 
     @Override
-    public Map<Integer, Field> getFieldsMap(ARServerUser user, ARServerForm form) throws RemedyReadFailedException {
+    public Map<Integer, Field> getFieldsMap(ARServerContext user, ARServerForm form) throws RemedyReadFailedException {
         Map<Integer, Field> fieldMap = new HashMap<>();
         log.debug("Getting field Item map ");
         List<Field> fieldList = null;
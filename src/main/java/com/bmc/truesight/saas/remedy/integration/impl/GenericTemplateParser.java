@@ -170,6 +170,33 @@ public class GenericTemplateParser implements TemplateParser {
         if (config.getQueryStatusList() != null && config.getQueryStatusList().size() > 0) {
             defaultConfig.setQueryStatusList(config.getQueryStatusList());
         }
+        if (config.getAdaptiveConcurrency() != null) {
+            defaultConfig.setAdaptiveConcurrency(config.getAdaptiveConcurrency());
+        }
+        if (config.getMaxThreadCount() != null) {
+            defaultConfig.setMaxThreadCount(config.getMaxThreadCount());
+        }
+        if (config.getMaxBatchBytes() != null) {
+            defaultConfig.setMaxBatchBytes(config.getMaxBatchBytes());
+        }
+        if (config.getMaxBatchEvents() != null) {
+            defaultConfig.setMaxBatchEvents(config.getMaxBatchEvents());
+        }
+        if (config.getLingerMs() != null) {
+            defaultConfig.setLingerMs(config.getLingerMs());
+        }
+        if (config.getMemoryBudgetMb() != null) {
+            defaultConfig.setMemoryBudgetMb(config.getMemoryBudgetMb());
+        }
+        if (config.getIncrementalSync() != null) {
+            defaultConfig.setIncrementalSync(config.getIncrementalSync());
+        }
+        if (config.getCoalesceWindowMs() != null) {
+            defaultConfig.setCoalesceWindowMs(config.getCoalesceWindowMs());
+        }
+        if (config.getJmxEnabled() != null) {
+            defaultConfig.setJmxEnabled(config.getJmxEnabled());
+        }
 
     }
 
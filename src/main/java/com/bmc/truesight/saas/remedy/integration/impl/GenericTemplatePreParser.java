@@ -141,6 +141,51 @@ public class GenericTemplatePreParser implements TemplatePreParser {
                 if (waitMsNode != null) {
                     config.setWaitMsBeforeRetry(Integer.valueOf(waitMsNode.asInt()));
                 }
+
+                JsonNode adaptiveNode = configuration.get(Constants.CONFIG_ADAPTIVECONCURRENCY_NODE_NAME);
+                if (adaptiveNode != null) {
+                    config.setAdaptiveConcurrency(adaptiveNode.asBoolean());
+                }
+
+                JsonNode maxThreadsNode = configuration.get(Constants.CONFIG_MAXTHREADS_NODE_NAME);
+                if (maxThreadsNode != null) {
+                    config.setMaxThreadCount(Integer.valueOf(maxThreadsNode.asInt()));
+                }
+
+                JsonNode maxBatchBytesNode = configuration.get(Constants.CONFIG_MAXBATCHBYTES_NODE_NAME);
+                if (maxBatchBytesNode != null) {
+                    config.setMaxBatchBytes(Integer.valueOf(maxBatchBytesNode.asInt()));
+                }
+
+                JsonNode maxBatchEventsNode = configuration.get(Constants.CONFIG_MAXBATCHEVENTS_NODE_NAME);
+                if (maxBatchEventsNode != null) {
+                    config.setMaxBatchEvents(Integer.valueOf(maxBatchEventsNode.asInt()));
+                }
+
+                JsonNode lingerNode = configuration.get(Constants.CONFIG_LINGERMS_NODE_NAME);
+                if (lingerNode != null) {
+                    config.setLingerMs(Integer.valueOf(lingerNode.asInt()));
+                }
+
+                JsonNode memoryBudgetNode = configuration.get(Constants.CONFIG_MEMORYBUDGETMB_NODE_NAME);
+                if (memoryBudgetNode != null) {
+                    config.setMemoryBudgetMb(Integer.valueOf(memoryBudgetNode.asInt()));
+                }
+
+                JsonNode incrementalSyncNode = configuration.get(Constants.CONFIG_INCREMENTALSYNC_NODE_NAME);
+                if (incrementalSyncNode != null) {
+                    config.setIncrementalSync(incrementalSyncNode.asBoolean());
+                }
+
+                JsonNode coalesceWindowNode = configuration.get(Constants.CONFIG_COALESCEWINDOWMS_NODE_NAME);
+                if (coalesceWindowNode != null) {
+                    config.setCoalesceWindowMs(Integer.valueOf(coalesceWindowNode.asInt()));
+                }
+
+                JsonNode jmxEnabledNode = configuration.get(Constants.CONFIG_JMXENABLED_NODE_NAME);
+                if (jmxEnabledNode != null) {
+                    config.setJmxEnabled(jmxEnabledNode.asBoolean());
+                }
             }
             template.setConfig(config);
         } catch (IOException e) {
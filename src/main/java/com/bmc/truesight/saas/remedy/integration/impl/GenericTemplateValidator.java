@@ -43,6 +43,8 @@ public class GenericTemplateValidator implements TemplateValidator {
         TSIEvent payload = template.getEventDefinition();
         Map<String, FieldItem> baseFieldItemMap = template.getFieldDefinitionMap();
 
+        // in incremental sync the window is open ended, the end date is not used
+        boolean incrementalSync = config.getIncrementalSync() != null && config.getIncrementalSync();
         if (config.getRemedyHostName().isEmpty()
                 || config.getRemedyUserName().isEmpty()
                 || config.getTsiEventEndpoint().isEmpty()
@@ -52,13 +54,18 @@ public class GenericTemplateValidator implements TemplateValidator {
                 || (config.getRetryConfig() < 0)
                 || (config.getWaitMsBeforeRetry() <= 0)
                 || (config.getStartDateTime() == null || (config.getStartDateTime() != null && StringUtils.isEmpty(config.getStartDateTime().toString())))
-                || (config.getEndDateTime() == null || (config.getEndDateTime() != null && StringUtils.isEmpty(config.getEndDateTime().toString())))) {
+                || (!incrementalSync && (config.getEndDateTime() == null || (config.getEndDateTime() != null && StringUtils.isEmpty(config.getEndDateTime().toString()))))) {
             throw new ValidationException(StringUtil.format(Constants.CONFIG_VALIDATION_FAILED, new Object[]{}));
         }
-        if (config.getStartDateTime().after(config.getEndDateTime())) {
+        if ((config.getMaxBatchBytes() != null && config.getMaxBatchBytes() <= 0)
+                || (config.getMaxBatchEvents() != null && config.getMaxBatchEvents() <= 0)
+                || (config.getLingerMs() != null && config.getLingerMs() < 0)) {
+            throw new ValidationException(StringUtil.format(Constants.BATCHING_VALIDATION_FAILED, new Object[]{}));
+        }
+        if (!incrementalSync && config.getStartDateTime().after(config.getEndDateTime())) {
             throw new ValidationException(StringUtil.format(Constants.DATERANGE_VALIDATION_FAILED, new Object[]{}));
         }
-        if (config.getEndDateTime().after(new Date())) {
+        if (!incrementalSync && config.getEndDateTime().after(new Date())) {
             throw new ValidationException(StringUtil.format(Constants.DATERANGE_VALIDATION_FAILED, new Object[]{}));
         }
 
@@ -0,0 +1,99 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.bmc.truesight.saas.remedy.integration.MetricsRegistry;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
+import com.bmc.truesight.saas.remedy.integration.util.LatencyHistogram;
+
+/**
+ * {@link MetricsRegistry} which keeps a {@link LongAdder} for every counter
+ * and a {@link LatencyHistogram} for every timer, its memory does not grow
+ * with the length of the run. {@link #report()} summarizes where the time of
+ * a run went.
+ *
+ * @author vitiwari
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private final LongAdder[] counters = new LongAdder[Metric.values().length];
+    private final LatencyHistogram[] timers = new LatencyHistogram[Metric.values().length];
+
+    public InMemoryMetricsRegistry() {
+        for (Metric metric : Metric.values()) {
+            if (metric.isTimer()) {
+                timers[metric.ordinal()] = new LatencyHistogram();
+            } else {
+                counters[metric.ordinal()] = new LongAdder();
+            }
+        }
+    }
+
+    @Override
+    public void increment(Metric metric, long delta) {
+        LongAdder counter = counters[metric.ordinal()];
+        if (counter != null) {
+            counter.add(delta);
+        }
+    }
+
+    @Override
+    public void recordNanos(Metric metric, long nanos) {
+        LatencyHistogram timer = timers[metric.ordinal()];
+        if (timer != null) {
+            timer.record(nanos);
+        }
+    }
+
+    /**
+     * @param metric {@link Metric}
+     * @return value of a counter, or no of values recorded by a timer
+     */
+    public long getCount(Metric metric) {
+        return metric.isTimer() ? timers[metric.ordinal()].getCount() : counters[metric.ordinal()].sum();
+    }
+
+    /**
+     * @param metric timer {@link Metric}
+     * @return {@link LatencyHistogram} of the timer, null for a counter
+     */
+    public LatencyHistogram getHistogram(Metric metric) {
+        return timers[metric.ordinal()];
+    }
+
+    public void reset() {
+        for (Metric metric : Metric.values()) {
+            if (metric.isTimer()) {
+                timers[metric.ordinal()].reset();
+            } else {
+                counters[metric.ordinal()].reset();
+            }
+        }
+    }
+
+    /**
+     * @return one line per metric, with the total time, the mean and the
+     * percentiles in milliseconds for the timers
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Metric metric : Metric.values()) {
+            report.append(metric.name()).append(": ");
+            if (metric.isTimer()) {
+                LatencyHistogram timer = timers[metric.ordinal()];
+                report.append(String.format("count=%d total=%.3fs mean=%.3fms p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+                        timer.getCount(), timer.getTotal() / 1e9, timer.getMean() / 1e6, toMillis(timer.getValueAtPercentile(50)),
+                        toMillis(timer.getValueAtPercentile(99)), toMillis(timer.getValueAtPercentile(99.9)), toMillis(timer.getMax())));
+            } else {
+                report.append(counters[metric.ordinal()].sum());
+            }
+            report.append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,37 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.CompactResult;
+
+/**
+ * {@link IngestionListener} which aggregates all the batch results of a run
+ * in memory, as a {@link CompactResult}.
+ *
+ * @author vitiwari
+ */
+public class InMemoryResultSink implements IngestionListener {
+
+    private final CompactResult result;
+
+    /**
+     * Creates a sink keeping only the indexes of the accepted events.
+     */
+    public InMemoryResultSink() {
+        this(false);
+    }
+
+    public InMemoryResultSink(boolean retainAcceptedIds) {
+        this.result = new CompactResult(retainAcceptedIds);
+    }
+
+    @Override
+    public void onBatchComplete(BatchResult batchResult) {
+        // the indexes of the batch result are already absolute
+        result.addBatch(batchResult.getResult(), 0);
+    }
+
+    public CompactResult getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,174 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.arsys.api.Timestamp;
+import com.bmc.arsys.api.Value;
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.RemedyEntryReader;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.RemedyEventResponse;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.beans.Watermark;
+import com.bmc.truesight.saas.remedy.integration.exception.BulkEventsIngestionFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+
+/**
+ * This class sends the tickets modified since the last poll, instead of a
+ * fixed startDateTime/endDateTime window. The Last_Modified_Date and entry id
+ * of the last ticket sent are kept as a {@link Watermark} in a
+ * {@link WatermarkCheckpoint}, which is saved after every chunk once its
+ * batches are acknowledged by TSI. If a batch of the chunk is not
+ * acknowledged the watermark only moves up to the last entry before it, the
+ * poll fails and the rest of the chunk is read again by the next poll. A
+ * batch whose events TSI rejected is acknowledged, the rejected events are
+ * reported to the listener and the watermark moves past them.
+ * <p>
+ * The first poll starts from the startDateTime of the configuration, when no
+ * checkpoint exists yet.
+ *
+ * @author vitiwari
+ */
+public class IncrementalSync {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalSync.class);
+
+    private final RemedyEntryReader reader;
+    private final ARServerContext arServerContext;
+    private final ARServerForm form;
+    private final Template template;
+    private final RemedyEntryEventAdapter adapter;
+    private final EventIngestionExecuterService ingestionService;
+    private final WatermarkCheckpoint checkpoint;
+    private Watermark watermark;
+
+    public IncrementalSync(RemedyEntryReader reader, ARServerContext arServerContext, ARServerForm form, Template template,
+            RemedyEntryEventAdapter adapter, EventIngestionExecuterService ingestionService, WatermarkCheckpoint checkpoint) {
+        this.reader = reader;
+        this.arServerContext = arServerContext;
+        this.form = form;
+        this.template = template;
+        this.adapter = adapter;
+        this.ingestionService = ingestionService;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Reads and sends all the tickets modified after the watermark, chunkSize
+     * tickets at a time.
+     *
+     * @param listener {@link IngestionListener} receiving the batch results,
+     * the indexes count the events sent by this poll
+     * @return no of events sent
+     * @throws RemedyReadFailedException if reading fails or the checkpoint
+     * can not be read or written
+     * @throws BulkEventsIngestionFailedException if sending fails or a batch
+     * is not acknowledged by TSI
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public synchronized int poll(IngestionListener listener) throws RemedyReadFailedException, BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        Configuration config = template.getConfig();
+        Watermark current = getWatermark();
+        int sent = 0;
+        while (true) {
+            List<Entry> entries = reader.readRemedyEntriesSince(arServerContext, form, template, current, config.getChunkSize(), new OutputInteger());
+            if (entries.isEmpty()) {
+                break;
+            }
+            RemedyEventResponse response = reader.convertEntries(template, entries, adapter);
+            for (InvalidEvent invalidEvent : response.getInvalidEventList()) {
+                listener.onInvalidEvent(invalidEvent);
+            }
+            List<TSIEvent> events = response.getValidEventList();
+            // index of the first event of the chunk which TSI did not acknowledge
+            AtomicInteger firstFailed = new AtomicInteger(events.size());
+            if (!events.isEmpty()) {
+                int base = sent;
+                ingestionService.ingestEvents(events, config, batchResult -> {
+                    if (!batchResult.isAcknowledged()) {
+                        firstFailed.accumulateAndGet(batchResult.getStartIndex(), Math::min);
+                    }
+                    listener.onBatchComplete(batchResult.shift(base));
+                });
+                sent += events.size();
+            }
+            if (firstFailed.get() < events.size()) {
+                String failedEntryId = events.get(firstFailed.get()).getEntryId();
+                int acknowledged = indexOf(entries, failedEntryId);
+                if (acknowledged > 0) {
+                    current = getWatermark(entries.get(acknowledged - 1));
+                    save(current);
+                }
+                throw new BulkEventsIngestionFailedException("Events of the entry " + failedEntryId + " were not acknowledged by TSI, the watermark stops at " + current);
+            }
+            current = getWatermark(entries.get(entries.size() - 1));
+            save(current);
+            if (entries.size() < config.getChunkSize() && !reader.exceededMaxServerEntries(arServerContext)) {
+                break;
+            }
+        }
+        log.debug("Incremental poll completed, {} events sent, watermark {}", sent, current);
+        return sent;
+    }
+
+    private static int indexOf(List<Entry> entries, String entryId) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).getEntryId().equals(entryId)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private Watermark getWatermark(Entry entry) throws RemedyReadFailedException {
+        Value value = entry.get(Constants.LAST_MODIFIED_DATE_FIELD_ID);
+        if (value == null || !(value.getValue() instanceof Timestamp)) {
+            throw new RemedyReadFailedException("Last_Modified_Date is missing for the entry " + entry.getEntryId() + ", the watermark can not be moved");
+        }
+        return new Watermark(((Timestamp) value.getValue()).getValue(), entry.getEntryId());
+    }
+
+    private void save(Watermark next) throws RemedyReadFailedException {
+        try {
+            checkpoint.save(next);
+            watermark = next;
+        } catch (IOException e) {
+            throw new RemedyReadFailedException("Saving the checkpoint " + checkpoint.getFile() + " failed, " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return current {@link Watermark}, loaded from the checkpoint or derived
+     * from the startDateTime of the configuration
+     * @throws RemedyReadFailedException if the checkpoint can not be read
+     */
+    public synchronized Watermark getWatermark() throws RemedyReadFailedException {
+        if (watermark == null) {
+            try {
+                watermark = checkpoint.load();
+            } catch (IOException e) {
+                throw new RemedyReadFailedException("Reading the checkpoint " + checkpoint.getFile() + " failed, " + e.getMessage());
+            }
+            if (watermark == null) {
+                // one second back, the tickets modified at the start date are included
+                watermark = new Watermark(template.getConfig().getStartDateTime().getTime() / 1000 - 1, null);
+            }
+            log.debug("Incremental sync starts from the watermark {}", watermark);
+        }
+        return watermark;
+    }
+}
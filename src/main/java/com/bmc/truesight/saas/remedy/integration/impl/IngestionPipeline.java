@@ -0,0 +1,614 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.OutputInteger;
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.IngestionPipelineMXBean;
+import com.bmc.truesight.saas.remedy.integration.RemedyEntryReader;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.InvalidEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.RemedyEventResponse;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.exception.BulkEventsIngestionFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.RemedyReadFailedException;
+import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.LatencyHistogram;
+import com.bmc.truesight.saas.remedy.integration.util.MBeans;
+import com.bmc.truesight.saas.remedy.integration.util.NamedThreadFactory;
+import com.bmc.truesight.saas.remedy.integration.util.RateMeter;
+import com.bmc.truesight.saas.remedy.integration.util.SizeEstimator;
+
+/**
+ * This class runs a complete ingestion of the tickets matching the template,
+ * as separate stages connected by bounded queues:
+ * <ol>
+ * <li>reader threads fetch chunks of {@link Entry} from ARServer,</li>
+ * <li>converter threads convert and validate the entries into
+ * {@link TSIEvent}s,</li>
+ * <li>an {@link EventBatchAccumulator} groups the events into batches,</li>
+ * <li>the {@link EventIngestionExecuterService} sends the batches to TSI.</li>
+ * </ol>
+ * AR reads, conversion and TSI writes therefore overlap instead of blocking
+ * each other. A full queue blocks the stage in front of it. The estimated heap
+ * held by the entries, events and payloads in flight is accounted in a
+ * {@link MemoryBudget} (memoryBudgetMb in the configuration), producers are
+ * blocked while the budget is exhausted. When an {@link EventSpool} is set,
+ * the events are spooled to disk before they are sent and acknowledged once
+ * TSI answers for them, accepted or rejected, only the events of the batches
+ * which could not be sent stay pending. {@link #resume(IngestionListener)}
+ * streams the events left in the spool by an interrupted run through the
+ * batching again. When a {@link DeadLetterStore} is set, the events rejected
+ * by TSI and the invalid events are recorded in it. When an
+ * {@link EventDedupStore} is set, the events of unchanged tickets are dropped
+ * right after the conversion.
+ * With a coalesceWindowMs in the configuration, the versions of a ticket seen
+ * within the window are merged by an {@link EventCoalescer} before they are
+ * spooled and sent. Held events are released as chunks are converted, and
+ * all of them once the last chunk is converted. When a
+ * {@link FreshnessTracker} is set, the lag of every accepted event from the
+ * Last_Modified_Date of its ticket is recorded. With jmxEnabled in the
+ * configuration, the pipeline is registered as an
+ * {@link IngestionPipelineMXBean} while it runs.
+ *
+ * @author vitiwari
+ */
+public class IngestionPipeline implements IngestionPipelineMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+    // marks the end of the entry stream for a converter thread, compared by identity
+    private static final List<Entry> END_OF_STREAM = new ArrayList<>(0);
+
+    private final RemedyEntryReader reader;
+    private final ARServerContext arServerContext;
+    private final ARServerForm form;
+    private final Template template;
+    private final RemedyEntryEventAdapter adapter;
+    private final EventIngestionExecuterService ingestionService;
+
+    private int readerThreads = Constants.PIPELINE_DEFAULT_READER_THREADS;
+    private int converterThreads = Constants.PIPELINE_DEFAULT_CONVERTER_THREADS;
+    private int queueCapacity = Constants.PIPELINE_DEFAULT_QUEUE_CAPACITY;
+
+    private EventSpool spool;
+    private DeadLetterStore deadLetterStore;
+    private EventDedupStore dedupStore;
+    private FreshnessTracker freshnessTracker;
+
+    private volatile BlockingQueue<List<Entry>> entryQueue;
+    private volatile EventBatchAccumulator accumulator;
+    private volatile MemoryBudget memoryBudget;
+    private volatile EventCoalescer coalescer;
+    private volatile int totalRecords;
+    // no of records per AR call, it can only be lowered below maxPageSize while running
+    private volatile int pageSize;
+    private volatile int maxPageSize;
+    private final RateMeter readRate = new RateMeter();
+    private final AtomicInteger recordsRead = new AtomicInteger();
+    private final AtomicInteger eventsConverted = new AtomicInteger();
+    private final AtomicInteger invalidEventCount = new AtomicInteger();
+
+    /**
+     * @param reader {@link RemedyEntryReader} used to read and convert the entries
+     * @param arServerContext logged in {@link ARServerContext}, used by the first
+     * reader thread. Other reader threads log in with their own context.
+     * @param form {@link ARServerForm} to read
+     * @param template {@link Template} with the configuration and mapping
+     * @param adapter {@link RemedyEntryEventAdapter} for the form
+     * @param ingestionService {@link EventIngestionExecuterService} sending the
+     * batches, preferably a long-lived one
+     */
+    public IngestionPipeline(RemedyEntryReader reader, ARServerContext arServerContext, ARServerForm form, Template template,
+            RemedyEntryEventAdapter adapter, EventIngestionExecuterService ingestionService) {
+        this.reader = reader;
+        this.arServerContext = arServerContext;
+        this.form = form;
+        this.template = template;
+        this.adapter = adapter;
+        this.ingestionService = ingestionService;
+    }
+
+    /**
+     * Runs the pipeline until all the matching tickets are sent, the result of
+     * every batch is streamed to the listener.
+     *
+     * @param listener {@link IngestionListener} receiving the batch results and
+     * the invalid events
+     * @throws RemedyReadFailedException if reading or converting fails
+     * @throws BulkEventsIngestionFailedException if sending fails
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public void run(IngestionListener listener) throws RemedyReadFailedException, BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        Configuration config = template.getConfig();
+        int chunkSize = config.getChunkSize();
+        entryQueue = new ArrayBlockingQueue<>(queueCapacity);
+        accumulator = new EventBatchAccumulator(config);
+        memoryBudget = newMemoryBudget(config);
+        accumulator.setMemoryBudget(memoryBudget);
+        coalescer = config.getCoalesceWindowMs() != null && config.getCoalesceWindowMs() > 0
+                ? new EventCoalescer(config.getCoalesceWindowMs(), Constants.COALESCER_DEFAULT_MAX_PENDING) : null;
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        // the first chunk is read on the calling thread to learn the total no of records
+        OutputInteger recordsCount = new OutputInteger();
+        List<Entry> firstChunk = reader.readRemedyEntries(arServerContext, form, template, 0, chunkSize, recordsCount);
+        totalRecords = recordsCount.intValue();
+        recordsRead.addAndGet(firstChunk.size());
+        readRate.mark(firstChunk.size());
+        try {
+            memoryBudget.acquire(chunkReservation(firstChunk));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemedyReadFailedException("Interrupted while starting the ingestion pipeline");
+        }
+        entryQueue.add(firstChunk);
+        // the server may cap the no of entries returned per call below the chunk size
+        maxPageSize = reader.exceededMaxServerEntries(arServerContext) && firstChunk.size() > 0 ? firstChunk.size() : chunkSize;
+        pageSize = maxPageSize;
+        AtomicInteger nextOffset = new AtomicInteger(firstChunk.isEmpty() ? totalRecords : firstChunk.size());
+        log.debug("Pipeline started for {} records, {} reader(s), {} converter(s)", new Object[]{totalRecords, readerThreads, converterThreads});
+
+        ExecutorService stages = Executors.newFixedThreadPool(readerThreads + converterThreads, new NamedThreadFactory(Constants.PIPELINE_THREAD_NAME_PREFIX, true));
+        AtomicInteger activeReaders = new AtomicInteger(readerThreads);
+        AtomicInteger activeConverters = new AtomicInteger(converterThreads);
+        for (int i = 0; i < readerThreads; i++) {
+            boolean ownContext = i > 0;
+            stages.execute(() -> read(ownContext, nextOffset, failure, activeReaders));
+        }
+        for (int i = 0; i < converterThreads; i++) {
+            stages.execute(() -> convert(listener, failure, activeConverters));
+        }
+
+        ObjectName objectName = config.getJmxEnabled() != null && config.getJmxEnabled() ? MBeans.register(this, "IngestionPipeline", form.name()) : null;
+        try {
+            ingestionService.ingestBatches(accumulator, config, wrap(listener));
+        } finally {
+            memoryBudget.abort();
+            stages.shutdownNow();
+            MBeans.unregister(objectName);
+        }
+        Exception stageFailure = failure.get();
+        if (stageFailure instanceof RemedyReadFailedException) {
+            throw (RemedyReadFailedException) stageFailure;
+        } else if (stageFailure != null) {
+            throw new RemedyReadFailedException(stageFailure.getMessage());
+        }
+        log.debug("Pipeline completed, {} records read, {} events converted, {} invalid events", new Object[]{recordsRead.get(), eventsConverted.get(), invalidEventCount.get()});
+    }
+
+    private void read(boolean ownContext, AtomicInteger nextOffset, AtomicReference<Exception> failure, AtomicInteger activeReaders) {
+        ARServerContext context = arServerContext;
+        try {
+            if (ownContext) {
+                Configuration config = template.getConfig();
+                context = reader.createServerContext(config.getRemedyHostName(), config.getRemedyPort(), config.getRemedyUserName(), config.getRemedyPassword());
+                reader.login(context);
+            }
+            while (failure.get() == null) {
+                int size = pageSize;
+                int offset = nextOffset.getAndAdd(size);
+                if (offset >= totalRecords) {
+                    break;
+                }
+                List<Entry> chunk = reader.readRemedyEntries(context, form, template, offset, size, new OutputInteger());
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                recordsRead.addAndGet(chunk.size());
+                readRate.mark(chunk.size());
+                if (!memoryBudget.acquire(chunkReservation(chunk), readerCeiling())) {
+                    break;
+                }
+                entryQueue.put(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Reading remedy tickets failed in the pipeline, {}", e.getMessage());
+            fail(failure, e);
+        } finally {
+            if (ownContext && context != null) {
+                reader.logout(context);
+            }
+            if (activeReaders.decrementAndGet() == 0) {
+                endEntryStream();
+            }
+        }
+    }
+
+    private static MemoryBudget newMemoryBudget(Configuration config) {
+        return new MemoryBudget(config.getMemoryBudgetMb() != null && config.getMemoryBudgetMb() > 0 ? config.getMemoryBudgetMb() * 1024L * 1024L : Long.MAX_VALUE);
+    }
+
+    private long readerCeiling() {
+        return (long) (memoryBudget.getMaxBytes() * Constants.PIPELINE_READER_BUDGET_SHARE);
+    }
+
+    /**
+     * Bytes reserved for a chunk of entries, at most the share of the readers
+     * so that a chunk larger than the budget can not keep the converters from
+     * reserving their events.
+     */
+    private long chunkReservation(List<Entry> chunk) {
+        return Math.min(SizeEstimator.estimateEntries(chunk), readerCeiling());
+    }
+
+    /**
+     * Records the first failure of a stage and aborts the memory budget, so
+     * that no stage keeps waiting for bytes the failed stage would release.
+     */
+    private void fail(AtomicReference<Exception> failure, Exception e) {
+        failure.compareAndSet(null, e);
+        memoryBudget.abort();
+    }
+
+    private void endEntryStream() {
+        try {
+            for (int i = 0; i < converterThreads; i++) {
+                entryQueue.put(END_OF_STREAM);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void convert(IngestionListener listener, AtomicReference<Exception> failure, AtomicInteger activeConverters) {
+        try {
+            while (true) {
+                List<Entry> chunk = entryQueue.take();
+                if (chunk == END_OF_STREAM) {
+                    break;
+                }
+                RemedyEventResponse response = null;
+                try {
+                    // after a failure keep draining so that the readers are never blocked on a full queue
+                    if (failure.get() == null) {
+                        response = reader.convertEntries(template, chunk, adapter);
+                    }
+                } catch (Exception e) {
+                    log.error("Converting remedy tickets failed in the pipeline, {}", e.getMessage());
+                    fail(failure, e);
+                } finally {
+                    // converted, failed or skipped, the chunk is not held anymore
+                    memoryBudget.release(chunkReservation(chunk));
+                }
+                if (response == null) {
+                    continue;
+                }
+                try {
+                    List<TSIEvent> events = dedupStore != null ? dedupStore.filterChanged(response.getValidEventList()) : response.getValidEventList();
+                    if (coalescer != null) {
+                        List<TSIEvent> released = new ArrayList<>();
+                        for (TSIEvent event : events) {
+                            released.addAll(coalescer.offer(event));
+                        }
+                        released.addAll(coalescer.expired());
+                        events = released;
+                    }
+                    send(events);
+                    eventsConverted.addAndGet(response.getValidEventList().size());
+                    if (!response.getInvalidEventList().isEmpty()) {
+                        invalidEventCount.addAndGet(response.getInvalidEventList().size());
+                        synchronized (listener) {
+                            for (InvalidEvent invalidEvent : response.getInvalidEventList()) {
+                                listener.onInvalidEvent(invalidEvent);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    log.error("Sending the converted events failed in the pipeline, {}", e.getMessage());
+                    fail(failure, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (activeConverters.decrementAndGet() == 0) {
+                if (coalescer != null && failure.get() == null) {
+                    try {
+                        send(coalescer.drain());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        log.error("Releasing the coalesced events failed in the pipeline, {}", e.getMessage());
+                        fail(failure, e);
+                    }
+                }
+                accumulator.close();
+            }
+        }
+    }
+
+    private void send(List<TSIEvent> events) throws IOException, InterruptedException {
+        if (spool != null && !events.isEmpty()) {
+            for (TSIEvent event : events) {
+                spool.append(event);
+            }
+            spool.sync();
+        }
+        for (TSIEvent event : events) {
+            accumulator.append(event);
+        }
+    }
+
+    /**
+     * Sends the events left pending in the spool by an interrupted run,
+     * without reading Remedy. The events are read from the spool chunkSize
+     * at a time and batched like the events of a run, so that only a few
+     * chunks of the backlog are held in memory. Does nothing if no spool is
+     * set.
+     *
+     * @param listener {@link IngestionListener} receiving the batch results
+     * @throws RemedyReadFailedException if the spool can not be read
+     * @throws BulkEventsIngestionFailedException if sending fails
+     * @throws TsiAuthenticationFailedException if TSI rejects the API token
+     */
+    public void resume(IngestionListener listener) throws RemedyReadFailedException, BulkEventsIngestionFailedException, TsiAuthenticationFailedException {
+        if (spool == null || spool.getPendingCount() == 0) {
+            return;
+        }
+        Configuration config = template.getConfig();
+        accumulator = new EventBatchAccumulator(config);
+        memoryBudget = newMemoryBudget(config);
+        accumulator.setMemoryBudget(memoryBudget);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        log.debug("Resuming {} pending events from the spool", spool.getPendingCount());
+
+        ExecutorService stages = Executors.newSingleThreadExecutor(new NamedThreadFactory(Constants.PIPELINE_THREAD_NAME_PREFIX, true));
+        stages.execute(() -> readSpool(config.getChunkSize(), failure));
+        try {
+            ingestionService.ingestBatches(accumulator, config, wrap(listener));
+        } finally {
+            memoryBudget.abort();
+            stages.shutdownNow();
+        }
+        Exception stageFailure = failure.get();
+        if (stageFailure != null) {
+            throw new RemedyReadFailedException("Reading the event spool failed, " + stageFailure.getMessage());
+        }
+    }
+
+    private void readSpool(int chunkSize, AtomicReference<Exception> failure) {
+        try {
+            long lastRecordId = 0;
+            List<TSIEvent> chunk;
+            while (!(chunk = spool.getPendingEvents(lastRecordId, chunkSize)).isEmpty()) {
+                for (TSIEvent event : chunk) {
+                    accumulator.append(event);
+                }
+                lastRecordId = chunk.get(chunk.size() - 1).getSpoolRecordId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Reading the event spool failed in the pipeline, {}", e.getMessage());
+            fail(failure, e);
+        } finally {
+            accumulator.close();
+        }
+    }
+
+    private IngestionListener wrap(IngestionListener listener) {
+        if (freshnessTracker != null) {
+            listener = freshnessTracker.wrap(form, listener);
+        }
+        if (spool == null && dedupStore == null && deadLetterStore == null) {
+            return listener;
+        }
+        IngestionListener delegate = listener;
+        return new IngestionListener() {
+            @Override
+            public void onBatchComplete(BatchResult batchResult) {
+                if (dedupStore != null) {
+                    dedupStore.onBatchComplete(batchResult);
+                }
+                // the rejected events are recorded before their spool records are acknowledged
+                if (deadLetterStore != null) {
+                    deadLetterStore.onBatchComplete(batchResult);
+                }
+                if (spool != null && batchResult.isAcknowledged() && batchResult.getEvents() != null) {
+                    for (TSIEvent event : batchResult.getEvents()) {
+                        if (event.getSpoolRecordId() != null) {
+                            spool.ack(event.getSpoolRecordId());
+                        }
+                    }
+                }
+                delegate.onBatchComplete(batchResult);
+            }
+
+            @Override
+            public void onInvalidEvent(InvalidEvent invalidEvent) {
+                if (deadLetterStore != null) {
+                    deadLetterStore.onInvalidEvent(invalidEvent);
+                }
+                delegate.onInvalidEvent(invalidEvent);
+            }
+        };
+    }
+
+    /**
+     * @param spool {@link EventSpool} the events are written to before they
+     * are sent, null to send without spooling
+     */
+    public void setSpool(EventSpool spool) {
+        this.spool = spool;
+    }
+
+    /**
+     * @param deadLetterStore {@link DeadLetterStore} recording the events
+     * rejected by TSI and the invalid events, null to only report them to the
+     * listener
+     */
+    public void setDeadLetterStore(DeadLetterStore deadLetterStore) {
+        this.deadLetterStore = deadLetterStore;
+    }
+
+    /**
+     * @param dedupStore {@link EventDedupStore} used to drop the events of
+     * unchanged tickets, null to send every event
+     */
+    public void setDedupStore(EventDedupStore dedupStore) {
+        this.dedupStore = dedupStore;
+    }
+
+    /**
+     * @param freshnessTracker {@link FreshnessTracker} recording the lag of
+     * the accepted events, null to not measure it
+     */
+    public void setFreshnessTracker(FreshnessTracker freshnessTracker) {
+        this.freshnessTracker = freshnessTracker;
+    }
+
+    public void setReaderThreads(int readerThreads) {
+        this.readerThreads = Math.max(1, readerThreads);
+    }
+
+    public void setConverterThreads(int converterThreads) {
+        this.converterThreads = Math.max(1, converterThreads);
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * @return {@link MemoryBudget} of the current run, with its current and
+     * peak usage
+     */
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    @Override
+    public int getTotalRecords() {
+        return totalRecords;
+    }
+
+    @Override
+    public int getRecordsRead() {
+        return recordsRead.get();
+    }
+
+    @Override
+    public int getEventsConverted() {
+        return eventsConverted.get();
+    }
+
+    /**
+     * @return no of intermediate ticket versions merged by the coalescer
+     */
+    @Override
+    public long getCoalescedCount() {
+        EventCoalescer current = coalescer;
+        return current != null ? current.getCoalescedCount() : 0;
+    }
+
+    @Override
+    public int getInvalidEventCount() {
+        return invalidEventCount.get();
+    }
+
+    /**
+     * @return no of entry chunks waiting for the converters
+     */
+    @Override
+    public int getEntryQueueSize() {
+        BlockingQueue<List<Entry>> queue = entryQueue;
+        return queue != null ? queue.size() : 0;
+    }
+
+    @Override
+    public int getEntryQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return no of sealed batches waiting for the sender
+     */
+    @Override
+    public int getBatchQueueSize() {
+        EventBatchAccumulator batches = accumulator;
+        return batches != null ? batches.getSealedBatchCount() : 0;
+    }
+
+    @Override
+    public int getBatchQueueCapacity() {
+        EventBatchAccumulator batches = accumulator;
+        return batches != null ? batches.getMaxSealedBatches() : 0;
+    }
+
+    @Override
+    public double getProgressPercent() {
+        int total = totalRecords;
+        return total > 0 ? Math.min(100, recordsRead.get() * 100.0 / total) : 0;
+    }
+
+    @Override
+    public double getReadRate() {
+        return readRate.getRatePerSecond();
+    }
+
+    @Override
+    public long getMemoryBudgetUsedBytes() {
+        MemoryBudget budget = memoryBudget;
+        return budget != null ? budget.getUsedBytes() : 0;
+    }
+
+    @Override
+    public long getMemoryBudgetPeakBytes() {
+        MemoryBudget budget = memoryBudget;
+        return budget != null ? budget.getPeakBytes() : 0;
+    }
+
+    @Override
+    public long getCurrentMaxLagMs() {
+        return freshnessTracker != null ? freshnessTracker.getCurrentMaxLagMs(form) : 0;
+    }
+
+    @Override
+    public long getLagP99Ms() {
+        LatencyHistogram lags = freshnessTracker != null ? freshnessTracker.getLagHistogram(form) : null;
+        return lags != null ? lags.getValueAtPercentile(99) : 0;
+    }
+
+    @Override
+    public int getChunkSize() {
+        return pageSize > 0 ? pageSize : template.getConfig().getChunkSize();
+    }
+
+    /**
+     * Only applies to a running pipeline, the chunk size of a run is taken
+     * from the configuration.
+     */
+    @Override
+    public void setChunkSize(int chunkSize) {
+        if (maxPageSize == 0) {
+            log.debug("The pipeline is not running, the chunk size is taken from the configuration");
+            return;
+        }
+        pageSize = Math.max(1, Math.min(chunkSize, maxPageSize));
+        log.info("Pipeline chunk size changed to {}", pageSize);
+    }
+}
@@ -0,0 +1,193 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.bmc.truesight.saas.remedy.integration.beans.FieldItem;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.LatencyHistogram;
+
+/**
+ * This class profiles the field mapping of a template over a whole run: for
+ * every property of the converted events it aggregates the bytes the property
+ * adds to the serialized event and how often its value is empty. The sizes
+ * are recorded in a {@link LatencyHistogram}, which is a fixed size streaming
+ * sketch, so the memory of the profiler depends on the no of properties of
+ * the template and not on the no of events.
+ * <p>
+ * The report helps to remove the heavy or always empty fields from the
+ * templates. Set the profiler on the {@link GenericRemedyReader}, every
+ * converted event is then profiled, including the ones dropped because of
+ * their size.
+ *
+ * @author vitiwari
+ */
+public class MappingProfiler {
+
+    // quotes around the key and the value, colon and comma of a property in the json
+    private static final int PROPERTY_JSON_OVERHEAD = 6;
+
+    private final Map<String, PropertyProfile> properties = new ConcurrentHashMap<>();
+    private final LongAdder eventCount = new LongAdder();
+
+    private static class PropertyProfile {
+
+        private final Integer fieldId;
+        private final LatencyHistogram bytes = new LatencyHistogram();
+        private final LongAdder emptyCount = new LongAdder();
+
+        PropertyProfile(Integer fieldId) {
+            this.fieldId = fieldId;
+        }
+    }
+
+    /**
+     * Records the properties of a converted event.
+     *
+     * @param template {@link Template} the event was converted with
+     * @param event converted {@link TSIEvent}
+     */
+    public void record(Template template, TSIEvent event) {
+        if (event == null || event.getProperties() == null) {
+            return;
+        }
+        eventCount.increment();
+        for (Map.Entry<String, String> property : event.getProperties().entrySet()) {
+            PropertyProfile profile = properties.computeIfAbsent(property.getKey(), key -> new PropertyProfile(getFieldId(template, key)));
+            String value = property.getValue();
+            if (value == null || Constants.NONE_VALUE.equals(value)) {
+                profile.emptyCount.increment();
+            }
+            profile.bytes.record(utf8Length(property.getKey()) + utf8Length(value) + PROPERTY_JSON_OVERHEAD);
+        }
+    }
+
+    private static Integer getFieldId(Template template, String propertyName) {
+        if (template.getEventDefinition() == null || template.getEventDefinition().getProperties() == null) {
+            return null;
+        }
+        String placeholder = template.getEventDefinition().getProperties().get(propertyName);
+        if (placeholder == null || !placeholder.startsWith("@") || template.getFieldDefinitionMap() == null) {
+            return null;
+        }
+        FieldItem fieldItem = template.getFieldDefinitionMap().get(placeholder);
+        return fieldItem != null ? fieldItem.getFieldId() : null;
+    }
+
+    /**
+     * Counts the UTF-8 bytes of a value without encoding it, json escaping is
+     * not taken into account.
+     */
+    private static long utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return no of events profiled
+     */
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    /**
+     * @return names of the profiled properties, by decreasing total bytes
+     */
+    public List<String> getPropertyNames() {
+        List<String> names = new ArrayList<>(properties.keySet());
+        Collections.sort(names, (first, second) -> Long.compare(getTotalBytes(second), getTotalBytes(first)));
+        return names;
+    }
+
+    /**
+     * @param propertyName name of the property in the event definition
+     * @return Remedy field id the property is mapped to, null for a constant
+     * property or an unknown one
+     */
+    public Integer getFieldId(String propertyName) {
+        PropertyProfile profile = properties.get(propertyName);
+        return profile != null ? profile.fieldId : null;
+    }
+
+    /**
+     * @param propertyName name of the property in the event definition
+     * @return histogram of the serialized bytes of the property, null if the
+     * property was not profiled
+     */
+    public LatencyHistogram getBytesHistogram(String propertyName) {
+        PropertyProfile profile = properties.get(propertyName);
+        return profile != null ? profile.bytes : null;
+    }
+
+    /**
+     * @param propertyName name of the property in the event definition
+     * @return bytes the property added to all the profiled events
+     */
+    public long getTotalBytes(String propertyName) {
+        PropertyProfile profile = properties.get(propertyName);
+        return profile != null ? profile.bytes.getTotal() : 0;
+    }
+
+    /**
+     * @param propertyName name of the property in the event definition
+     * @return share of the events with an empty value, from 0 to 1
+     */
+    public double getEmptyRate(String propertyName) {
+        PropertyProfile profile = properties.get(propertyName);
+        if (profile == null || profile.bytes.getCount() == 0) {
+            return 0;
+        }
+        return profile.emptyCount.sum() / (double) profile.bytes.getCount();
+    }
+
+    public void reset() {
+        properties.clear();
+        eventCount.reset();
+    }
+
+    /**
+     * @return one line per property, by decreasing total bytes, with its
+     * share of the property bytes, the empty rate and the percentiles of its
+     * size in bytes
+     */
+    public String report() {
+        List<String> names = getPropertyNames();
+        long allBytes = 0;
+        for (String name : names) {
+            allBytes += getTotalBytes(name);
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("events=%d properties=%d bytes=%d", getEventCount(), names.size(), allBytes)).append(System.lineSeparator());
+        for (String name : names) {
+            PropertyProfile profile = properties.get(name);
+            LatencyHistogram bytes = profile.bytes;
+            report.append(String.format("%s (field %s): total=%d share=%.1f%% empty=%.1f%% mean=%.1f p50=%d p99=%d max=%d",
+                    name, profile.fieldId != null ? profile.fieldId : "-", bytes.getTotal(), allBytes > 0 ? 100.0 * bytes.getTotal() / allBytes : 0,
+                    100 * getEmptyRate(name), bytes.getMean(), bytes.getValueAtPercentile(50), bytes.getValueAtPercentile(99), bytes.getMax()));
+            report.append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class accounts the estimated heap held by the tickets, events and
+ * payloads in flight. It is shared by the reader, converter and sender stages
+ * of the {@link IngestionPipeline}, a producer which would exceed the budget
+ * is blocked until enough bytes are released further down the pipeline. Once
+ * the run fails the budget is aborted, so that no producer waits for bytes
+ * which will never be released.
+ *
+ * @author vitiwari
+ */
+public class MemoryBudget {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryBudget.class);
+
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private long usedBytes;
+    private long peakBytes;
+    private long blockedCount;
+    private boolean aborted;
+
+    /**
+     * @param maxBytes budget in bytes, {@link Long#MAX_VALUE} only tracks the
+     * usage without blocking
+     */
+    public MemoryBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Reserves bytes, blocking while the budget is exhausted. A reservation
+     * larger than the whole budget is granted once nothing else is reserved,
+     * so that an oversized chunk can not block the pipeline forever.
+     *
+     * @param bytes estimated bytes to reserve
+     * @return true if reserved, false if the budget was aborted
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean acquire(long bytes) throws InterruptedException {
+        return acquire(bytes, maxBytes);
+    }
+
+    /**
+     * Reserves bytes, blocking while the usage would exceed the ceiling. Stages
+     * at the head of the pipeline use a ceiling below the budget, so that the
+     * stages further down can always reserve the memory they need to make
+     * progress.
+     *
+     * @param bytes estimated bytes to reserve
+     * @param ceiling usage limit for this reservation
+     * @return true if reserved, false if the budget was aborted, nothing is
+     * reserved then
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean acquire(long bytes, long ceiling) throws InterruptedException {
+        long limit = Math.min(ceiling, maxBytes);
+        lock.lockInterruptibly();
+        try {
+            if (!aborted && usedBytes > 0 && usedBytes + bytes > limit) {
+                blockedCount++;
+                log.debug("Memory budget of {} bytes exhausted ({} used), waiting to reserve {} bytes", new Object[]{limit, usedBytes, bytes});
+                while (!aborted && usedBytes > 0 && usedBytes + bytes > limit) {
+                    released.await();
+                }
+            }
+            if (aborted) {
+                return false;
+            }
+            usedBytes += bytes;
+            if (usedBytes > peakBytes) {
+                peakBytes = usedBytes;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long bytes) {
+        lock.lock();
+        try {
+            usedBytes = Math.max(0, usedBytes - bytes);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up the waiting producers and makes every further
+     * {@link #acquire(long, long)} return false without reserving, once the
+     * run has failed.
+     */
+    public void abort() {
+        lock.lock();
+        try {
+            aborted = true;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isAborted() {
+        lock.lock();
+        try {
+            return aborted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPeakBytes() {
+        lock.lock();
+        try {
+            return peakBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return no of times a producer had to wait for the budget
+     */
+    public long getBlockedCount() {
+        lock.lock();
+        try {
+            return blockedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.beans.Accepted;
+import com.bmc.truesight.saas.remedy.integration.beans.BatchResult;
+import com.bmc.truesight.saas.remedy.integration.beans.Error;
+import com.bmc.truesight.saas.remedy.integration.beans.Result;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * {@link IngestionListener} which appends one JSON line per event outcome to
+ * a file, ex
+ * <pre>
+ * {"index":12,"entryId":"INC000000000012","status":"accepted","id":"..."}
+ * {"index":13,"entryId":"INC000000000013","status":"error","message":"..."}
+ * </pre>
+ * The file is flushed after every batch, so it can be used as a progress log
+ * of a running ingestion.
+ *
+ * @author vitiwari
+ */
+public class NdjsonFileResultSink implements IngestionListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(NdjsonFileResultSink.class);
+
+    private final Writer writer;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public NdjsonFileResultSink(File file) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), Charset.forName("UTF-8")));
+    }
+
+    @Override
+    public synchronized void onBatchComplete(BatchResult batchResult) {
+        Result result = batchResult.getResult();
+        if (result == null) {
+            return;
+        }
+        try {
+            if (result.getAccepted() != null) {
+                for (Accepted accepted : result.getAccepted()) {
+                    JsonGenerator generator = startLine(batchResult, accepted.getIndex(), "accepted");
+                    generator.writeStringField("id", accepted.getId());
+                    endLine(generator);
+                }
+            }
+            if (result.getErrors() != null) {
+                for (Error error : result.getErrors()) {
+                    JsonGenerator generator = startLine(batchResult, error.getIndex(), "error");
+                    generator.writeStringField("message", error.getMessage());
+                    endLine(generator);
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            log.error("Writing the batch result to the result file failed, {}", e.getMessage());
+        }
+    }
+
+    private JsonGenerator startLine(BatchResult batchResult, int index, String status) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeNumberField("index", index);
+        generator.writeStringField("entryId", batchResult.getEntryId(index));
+        generator.writeStringField("status", status);
+        return generator;
+    }
+
+    private void endLine(JsonGenerator generator) throws IOException {
+        generator.writeEndObject();
+        generator.close();
+        writer.write('\n');
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
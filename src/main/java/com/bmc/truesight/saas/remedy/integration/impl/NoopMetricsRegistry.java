@@ -0,0 +1,22 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import com.bmc.truesight.saas.remedy.integration.MetricsRegistry;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
+
+/**
+ * {@link MetricsRegistry} which records nothing, the default registry.
+ *
+ * @author vitiwari
+ */
+public class NoopMetricsRegistry implements MetricsRegistry {
+
+    public static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    @Override
+    public void increment(Metric metric, long delta) {
+    }
+
+    @Override
+    public void recordNanos(Metric metric, long nanos) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.ARServerContext;
+import com.bmc.truesight.saas.remedy.integration.ARServerForm;
+import com.bmc.truesight.saas.remedy.integration.IngestionListener;
+import com.bmc.truesight.saas.remedy.integration.RemedyEntryReader;
+import com.bmc.truesight.saas.remedy.integration.adapter.RemedyEntryEventAdapter;
+import com.bmc.truesight.saas.remedy.integration.beans.Configuration;
+import com.bmc.truesight.saas.remedy.integration.beans.Template;
+import com.bmc.truesight.saas.remedy.integration.exception.TsiAuthenticationFailedException;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+import com.bmc.truesight.saas.remedy.integration.util.NamedThreadFactory;
+
+/**
+ * This class polls a form continuously with an {@link IncrementalSync}, over
+ * one AR session which is reused across the polls. The delay between two
+ * polls adapts to the activity of the form:
+ * <ul>
+ * <li>a poll which returned a full chunk or more resets the delay to the
+ * minimum interval,</li>
+ * <li>a poll which returned some changes halves the delay,</li>
+ * <li>an empty or failed poll doubles the delay, up to the maximum
+ * interval.</li>
+ * </ul>
+ * A random jitter is applied to every delay so that several pollers do not
+ * hit the AR server at the same time. A failed poll drops the session, the
+ * next poll logs in again. The poller stops on a TSI authentication failure.
+ *
+ * @author vitiwari
+ */
+public class RemedyPoller implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RemedyPoller.class);
+
+    private final RemedyEntryReader reader;
+    private final ARServerForm form;
+    private final Template template;
+    private final RemedyEntryEventAdapter adapter;
+    private final EventIngestionExecuterService ingestionService;
+    private final WatermarkCheckpoint checkpoint;
+    private final IngestionListener listener;
+
+    private long minIntervalMs = Constants.POLLER_MIN_INTERVAL_MS;
+    private long maxIntervalMs = Constants.POLLER_MAX_INTERVAL_MS;
+    private double jitterRatio = Constants.POLLER_JITTER_RATIO;
+
+    private ScheduledExecutorService scheduler;
+    private ARServerContext arServerContext;
+    private IncrementalSync sync;
+    private volatile long intervalMs;
+    private volatile long pollCount;
+    private volatile int lastPollSent;
+    private volatile int consecutiveFailures;
+
+    public RemedyPoller(RemedyEntryReader reader, ARServerForm form, Template template, RemedyEntryEventAdapter adapter,
+            EventIngestionExecuterService ingestionService, WatermarkCheckpoint checkpoint, IngestionListener listener) {
+        this.reader = reader;
+        this.form = form;
+        this.template = template;
+        this.adapter = adapter;
+        this.ingestionService = ingestionService;
+        this.checkpoint = checkpoint;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts polling, the first poll runs immediately.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Poller is already started");
+        }
+        intervalMs = minIntervalMs;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(Constants.POLLER_THREAD_NAME_PREFIX, true));
+        scheduler.execute(this::pollAndReschedule);
+        log.debug("Poller started for {}, interval {} - {} ms", new Object[]{form, minIntervalMs, maxIntervalMs});
+    }
+
+    private void pollAndReschedule() {
+        try {
+            int sent = getSync().poll(listener);
+            pollCount++;
+            lastPollSent = sent;
+            consecutiveFailures = 0;
+            if (sent >= template.getConfig().getChunkSize()) {
+                intervalMs = minIntervalMs;
+            } else if (sent > 0) {
+                intervalMs = Math.max(minIntervalMs, intervalMs / 2);
+            } else {
+                intervalMs = Math.min(maxIntervalMs, intervalMs * Constants.POLLER_BACKOFF_FACTOR);
+            }
+        } catch (TsiAuthenticationFailedException e) {
+            log.error("Poller stopped, {}", e.getMessage());
+            closeSession();
+            return;
+        } catch (Exception e) {
+            pollCount++;
+            consecutiveFailures++;
+            intervalMs = Math.min(maxIntervalMs, intervalMs * Constants.POLLER_BACKOFF_FACTOR);
+            log.error("Poll failed ({} in a row), retrying in about {} ms, {}", new Object[]{consecutiveFailures, intervalMs, e.getMessage()});
+            closeSession();
+        }
+        schedule(jittered(intervalMs));
+    }
+
+    private synchronized void schedule(long delayMs) {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.schedule(this::pollAndReschedule, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private long jittered(long delayMs) {
+        double factor = 1 - jitterRatio + 2 * jitterRatio * ThreadLocalRandom.current().nextDouble();
+        return Math.max(1, (long) (delayMs * factor));
+    }
+
+    private synchronized IncrementalSync getSync() throws Exception {
+        if (sync == null) {
+            Configuration config = template.getConfig();
+            arServerContext = reader.createServerContext(config.getRemedyHostName(), config.getRemedyPort(), config.getRemedyUserName(), config.getRemedyPassword());
+            reader.login(arServerContext);
+            sync = new IncrementalSync(reader, arServerContext, form, template, adapter, ingestionService, checkpoint);
+        }
+        return sync;
+    }
+
+    private synchronized void closeSession() {
+        if (arServerContext != null) {
+            try {
+                reader.logout(arServerContext);
+            } catch (Exception e) {
+                log.debug("Logout failed, {}", e.getMessage());
+            }
+        }
+        arServerContext = null;
+        sync = null;
+    }
+
+    /**
+     * Stops polling, a poll in progress is interrupted.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdownNow();
+            try {
+                current.awaitTermination(Constants.INGESTION_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeSession();
+    }
+
+    public void setMinIntervalMs(long minIntervalMs) {
+        this.minIntervalMs = Math.max(1, minIntervalMs);
+    }
+
+    public void setMaxIntervalMs(long maxIntervalMs) {
+        this.maxIntervalMs = Math.max(1, maxIntervalMs);
+    }
+
+    /**
+     * @param jitterRatio every delay is randomized by +/- this ratio
+     */
+    public void setJitterRatio(double jitterRatio) {
+        this.jitterRatio = Math.max(0, Math.min(1, jitterRatio));
+    }
+
+    /**
+     * @return delay before the next poll, without the jitter
+     */
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    public int getLastPollSent() {
+        return lastPollSent;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
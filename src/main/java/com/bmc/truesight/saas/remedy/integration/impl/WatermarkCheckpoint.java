@@ -0,0 +1,57 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bmc.truesight.saas.remedy.integration.beans.Watermark;
+import com.bmc.truesight.saas.remedy.integration.util.FileUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class persists a {@link Watermark} in a local json file. The file is
+ * replaced atomically, a crash while saving leaves the previous watermark in
+ * place.
+ *
+ * @author vitiwari
+ */
+public class WatermarkCheckpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(WatermarkCheckpoint.class);
+
+    private final File file;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public WatermarkCheckpoint(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the saved {@link Watermark}, or null if nothing was saved yet
+     * @throws IOException if the checkpoint file can not be read
+     */
+    public Watermark load() throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        return mapper.readValue(file, Watermark.class);
+    }
+
+    /**
+     * Writes the watermark to a temporary file and moves it over the
+     * checkpoint file.
+     *
+     * @param watermark {@link Watermark} to save
+     * @throws IOException if the checkpoint can not be written
+     */
+    public void save(Watermark watermark) throws IOException {
+        FileUtil.writeAtomically(file, mapper.writeValueAsBytes(watermark));
+        log.debug("Checkpoint {} saved, watermark {}", file, watermark);
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
@@ -21,6 +21,15 @@ public interface Constants {
     String CONFIG_CONDSTATUSFIELDS_NODE_NAME = "queryStatusList";
     String CONFIG_RETRY_NODE_NAME = "retryConfig";
     String CONFIG_WAITSMS_NODE_NAME = "waitMsBeforeRetry";
+    String CONFIG_ADAPTIVECONCURRENCY_NODE_NAME = "adaptiveConcurrency";
+    String CONFIG_MAXTHREADS_NODE_NAME = "maxThreadCount";
+    String CONFIG_MAXBATCHBYTES_NODE_NAME = "maxBatchBytes";
+    String CONFIG_MAXBATCHEVENTS_NODE_NAME = "maxBatchEvents";
+    String CONFIG_LINGERMS_NODE_NAME = "lingerMs";
+    String CONFIG_MEMORYBUDGETMB_NODE_NAME = "memoryBudgetMb";
+    String CONFIG_INCREMENTALSYNC_NODE_NAME = "incrementalSync";
+    String CONFIG_COALESCEWINDOWMS_NODE_NAME = "coalesceWindowMs";
+    String CONFIG_JMXENABLED_NODE_NAME = "jmxEnabled";
     String EVENTDEF_NODE_NAME = "eventDefinition";
     String FIELDDEFINITIONMAP_NODE_NAME = "fieldDefinitionMap";
     String PROPERTY_APP_ID = "app_id";
@@ -50,6 +59,53 @@ public interface Constants {
     int EVENT_INGESTION_STATE_ACCEPTED = 202;
     int UNAUTHORIZED_STATUS = 401;
     int EVENTASYNC_FIXED_THREAD_POOL = 10;
+    int ADAPTIVE_CONCURRENCY_MIN_LIMIT = 1;
+    double ADAPTIVE_CONCURRENCY_BACKOFF_RATIO = 0.5;
+    double ADAPTIVE_CONCURRENCY_SPIKE_RATIO = 0.9;
+    double ADAPTIVE_CONCURRENCY_LATENCY_TOLERANCE = 2.0;
+    int ADAPTIVE_CONCURRENCY_BASELINE_WINDOW = 100;
+    int ADAPTIVE_CONCURRENCY_DEFAULT_MAX_FACTOR = 2;
+    int INGESTION_QUEUE_CAPACITY_FACTOR = 2;
+    long INGESTION_DRAIN_TIMEOUT_MS = 60000l;
+    String INGESTION_THREAD_NAME_PREFIX = "tsi-ingestion";
+    long DEFAULT_MAX_BATCH_BYTES = 1000000l;
+    long DEFAULT_LINGER_MS = 200l;
+    long ACCUMULATOR_POLL_MS = 50l;
+    int PIPELINE_DEFAULT_READER_THREADS = 1;
+    int PIPELINE_DEFAULT_CONVERTER_THREADS = 2;
+    int PIPELINE_DEFAULT_QUEUE_CAPACITY = 4;
+    String PIPELINE_THREAD_NAME_PREFIX = "tsi-pipeline";
+    // share of the memory budget the reader stage may hold with fetched entries
+    double PIPELINE_READER_BUDGET_SHARE = 0.5;
+    int SPOOL_SEGMENT_BYTES = 64 * 1024 * 1024;
+    long SPOOL_COMPACTION_INTERVAL_MS = 30000l;
+    // segments with fewer pending records than this ratio are rewritten
+    double SPOOL_COMPACTION_LIVE_RATIO = 0.25;
+    String SPOOL_THREAD_NAME_PREFIX = "tsi-spool";
+    long DEAD_LETTER_SEGMENT_BYTES = 16 * 1024 * 1024l;
+    // core Remedy fields, common to all the forms
+    int REQUEST_ID_FIELD_ID = 1;
+    int LAST_MODIFIED_DATE_FIELD_ID = 6;
+    String CHECKPOINT_TEMP_SUFFIX = ".tmp";
+    int BACKFILL_DEFAULT_SLICE_RECORDS = 10000;
+    int BACKFILL_DEFAULT_PARALLELISM = 2;
+    String BACKFILL_THREAD_NAME_PREFIX = "tsi-backfill";
+    long POLLER_MIN_INTERVAL_MS = 5000l;
+    long POLLER_MAX_INTERVAL_MS = 300000l;
+    int POLLER_BACKOFF_FACTOR = 2;
+    double POLLER_JITTER_RATIO = 0.2;
+    String POLLER_THREAD_NAME_PREFIX = "tsi-poller";
+    int DEDUP_DEFAULT_CAPACITY = 1 << 16;
+    double DEDUP_MAX_LOAD_FACTOR = 0.7;
+    // 16 bytes per slot, the table must stay below 2GB to be mapped
+    int DEDUP_MAX_CAPACITY = 1 << 26;
+    int COALESCER_DEFAULT_MAX_PENDING = 10000;
+    String JMX_DOMAIN = "com.bmc.truesight.saas.remedy.integration";
+    long RATE_METER_TICK_MS = 5000l;
+    // the rates are averaged over about one minute
+    long RATE_METER_WINDOW_MS = 60000l;
+    int CAPACITY_PROBE_COUNT = 3;
+    int CAPACITY_PROBE_TIMEOUT_MS = 10000;
 
     String SPECIAL_CHARACTOR = "!#$%&'()*+,./:;<=>?@[]^`{|}~";
     //Messages
@@ -65,12 +121,14 @@ public interface Constants {
     String FACTORY_INITIALIZATION_EXCEPTION = "Failed to create proper instance in the factory, Please ensure you are using right parameters";
     String PROPERTY_NAME_INVALID = "The property \"{0}\" is not a valid Field Name, Only AlphaNumeric and Underscore are allowed characters in the Field Names.";
     String PROPERTY_FIELD_COUNT_EXCEEDS = "The number of properties captured(ie {0}) in the Remedy field mapping exceeds the maximum count of {1}, please review the field mapping and reduce the count for successful ingestion..";
+    String BATCHING_VALIDATION_FAILED = "The batching config is not appropriate, maxBatchBytes and maxBatchEvents should be greater than 0 and lingerMs should not be negative.";
     String DATERANGE_VALIDATION_FAILED = "Start date & End date in config is not appropriate, start date should not be greater than end date and end date should not be greater than current date.";
     String EVENT_FIELD_MISSING = "FingerPrintFields values are invalid, field \"{0}\" does not exist in Event fields. Accepted fields are {1}";
     String EVENT_PROPERTY_FIELD_MISSING = "FingerPrintFields values are invalid, field \"{0}\" does not exist in user fields (in properties of eventDefinition)";
     String APPLICATION_NAME_INVALID = "The application \"{0}\" is not valid , Only AlphaNumeric, Hyphen  and Underscore are allowed characters in the application name.";
     String PAYLOAD_PLACEHOLDER_FIELD_MISSING = "The field \"{0}\" does not exist in Template Configuration, please review the mapping";
     String APPLICATION_NAME_NOT_FOUND = "app_id field is missing from properties, please include one app_id field in properties";
+    String DEAD_LETTER_OVERSIZED_MESSAGE = "The event exceeds the maximum allowed size and was not sent";
     String LAST_MODIFIED_DATE_NOT_FOUND = "Last_Modified_Date field is missing from properties, please include this field in properties";
 
 }
@@ -0,0 +1,132 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.bmc.truesight.saas.remedy.integration.beans.EventSource;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+
+/**
+ * Identity and content hashes of the {@link TSIEvent}s. The fingerprint is the
+ * value of the fingerprintFields of the event (ex Incident_Number), ie the
+ * ticket an event belongs to. The content hash covers every mapped value of
+ * the event, so it changes whenever the ticket changes. The Last_Modified_Date
+ * property orders the versions of a ticket.
+ *
+ * @author vitiwari
+ */
+public class EventFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // separates the values, so that ("ab", "c") and ("a", "bc") differ
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * Returns the values of the fingerprint fields, a field starting with @
+     * is an event field (ex @title), else it is a property name.
+     *
+     * @param event {@link TSIEvent}
+     * @return fingerprint, or null if the event has no fingerprint fields
+     */
+    public static String getFingerprint(TSIEvent event) {
+        if (event.getFingerprintFields() == null || event.getFingerprintFields().isEmpty()) {
+            return null;
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        for (String field : event.getFingerprintFields()) {
+            if (field == null) {
+                continue;
+            }
+            if (fingerprint.length() > 0) {
+                fingerprint.append(SEPARATOR);
+            }
+            String value = field.startsWith(Constants.PLACEHOLDER_START_TOKEN) ? getEventField(event, field.substring(1))
+                    : (event.getProperties() != null ? event.getProperties().get(field) : null);
+            fingerprint.append(value);
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * @param event {@link TSIEvent}
+     * @return value of the Last_Modified_Date property of the event, or
+     * {@link Long#MIN_VALUE} if it is missing or not a number
+     */
+    public static long getLastModified(TSIEvent event) {
+        String value = event.getProperties() != null ? event.getProperties().get(Constants.PROPERTY_LAST_MODIFIED_DATE) : null;
+        if (value == null) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static String getEventField(TSIEvent event, String field) {
+        switch (field) {
+            case "source.name":
+                return event.getSource() != null ? event.getSource().getName() : null;
+            case "title":
+                return event.getTitle();
+            case "status":
+                return event.getStatus();
+            case "severity":
+                return event.getSeverity();
+            case "message":
+                return event.getMessage();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param event {@link TSIEvent}
+     * @return 64 bit hash of all the mapped values of the event, properties
+     * are hashed in key order
+     */
+    public static long contentHash(TSIEvent event) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash64(hash, event.getTitle());
+        hash = hash64(hash, event.getSeverity());
+        hash = hash64(hash, event.getStatus());
+        hash = hash64(hash, event.getMessage());
+        hash = hash64(hash, event.getCreatedAt());
+        hash = hash64(hash, event.getEventClass());
+        EventSource source = event.getSource();
+        if (source != null) {
+            hash = hash64(hash, source.getName());
+            hash = hash64(hash, source.getType());
+            hash = hash64(hash, source.getRef());
+        }
+        if (event.getProperties() != null) {
+            for (Map.Entry<String, String> property : new TreeMap<>(event.getProperties()).entrySet()) {
+                hash = hash64(hash, property.getKey());
+                hash = hash64(hash, property.getValue());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @param value text to hash
+     * @return 64 bit hash of the text
+     */
+    public static long hash64(String value) {
+        return hash64(FNV_OFFSET_BASIS, value);
+    }
+
+    // FNV-1a over the UTF-16 chars, followed by a separator
+    private static long hash64(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ SEPARATOR) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,37 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File helpers for the local checkpoint files.
+ *
+ * @author vitiwari
+ */
+public class FileUtil {
+
+    /**
+     * Replaces the content of a file atomically, the content is written and
+     * synced to a temporary file which is then moved over the file. A crash
+     * leaves either the old or the new content.
+     *
+     * @param file file to replace
+     * @param content new content
+     * @throws IOException if the file can not be written
+     */
+    public static void writeAtomically(File file, byte[] content) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Directory " + parent + " can not be created");
+        }
+        File temp = new File(file.getPath() + Constants.CHECKPOINT_TEMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(content);
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,210 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Custom Java Flight Recorder events of the library, so that a production
+ * recording shows the AR reads, conversions and TSI posts next to the GC and
+ * I/O events of the JVM. The library is built for Java 8, the events are
+ * therefore defined at runtime with the jdk.jfr.EventFactory API (Java 12 and
+ * later) through reflection. On an older JVM, or when no recording is
+ * running, {@link EventType#begin()} returns null and committing costs
+ * nothing more than a null check.
+ *
+ * @author vitiwari
+ */
+public class FlightRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorder.class);
+    private static final String EVENT_NAME_PREFIX = "com.bmc.truesight.saas.remedy.integration.";
+    private static final String CATEGORY = "Remedy TSI Integration";
+
+    private static final Reflection JFR = Reflection.load();
+
+    /**
+     * One getListEntryObjects call. Values: form, offset (-1 for a read by
+     * entry ids), requested rows, returned rows, retry no, error (null on
+     * success).
+     */
+    public static final EventType AR_FETCH = new EventType("ARFetch", "AR Fetch", "A getListEntryObjects call to the AR Server",
+            field(String.class, "form", "Form"), field(int.class, "offset", "Offset"), field(int.class, "requestedRows", "Requested Rows"),
+            field(int.class, "rows", "Rows"), field(int.class, "retry", "Retry"), field(String.class, "error", "Error"));
+
+    /**
+     * Conversion of a chunk of entries into events. Values: entries, valid
+     * events, events dropped because of their size.
+     */
+    public static final EventType CONVERSION = new EventType("Conversion", "Conversion", "Conversion of a chunk of Remedy entries into events",
+            field(int.class, "entries", "Entries"), field(int.class, "events", "Events"), field(int.class, "dropped", "Dropped Events"));
+
+    /**
+     * An event dropped because it exceeds the maximum size. Values: entry id,
+     * event size in bytes, largest property, size of the largest property in
+     * bytes.
+     */
+    public static final EventType OVERSIZE_DROP = new EventType("OversizeDrop", "Oversize Drop", "An event dropped before sending because of its size",
+            field(String.class, "entryId", "Entry Id"), field(long.class, "eventSize", "Event Size"),
+            field(String.class, "property", "Largest Property"), field(long.class, "propertySize", "Largest Property Size"));
+
+    /**
+     * One bulk POST to TSI. Values: events, payload bytes, http status (0 if
+     * no response was received), retry no.
+     */
+    public static final EventType TSI_POST = new EventType("TsiPost", "TSI Post", "A bulk event request to TSI",
+            field(int.class, "events", "Events"), field(long.class, "bytes", "Payload Bytes"), field(int.class, "status", "Status"),
+            field(int.class, "retry", "Retry"));
+
+    public static boolean isAvailable() {
+        return JFR != null;
+    }
+
+    private static Field field(Class<?> type, String name, String label) {
+        return new Field(type, name, label);
+    }
+
+    private static class Field {
+
+        private final Class<?> type;
+        private final String name;
+        private final String label;
+
+        Field(Class<?> type, String name, String label) {
+            this.type = type;
+            this.name = name;
+            this.label = label;
+        }
+    }
+
+    /**
+     * A custom event type, registered with the flight recorder when the
+     * class is loaded.
+     */
+    public static class EventType {
+
+        // jdk.jfr.EventFactory of the type, null if JFR is not available
+        private final Object factory;
+
+        EventType(String name, String label, String description, Field... fields) {
+            this.factory = JFR != null ? JFR.createFactory(EVENT_NAME_PREFIX + name, label, description, fields) : null;
+        }
+
+        /**
+         * Starts the timing of an event.
+         *
+         * @return the event, null if JFR is not available or the event type
+         * is not enabled in a running recording
+         */
+        public Object begin() {
+            return factory != null ? JFR.begin(factory) : null;
+        }
+
+        /**
+         * Ends and commits an event started with {@link #begin()}.
+         *
+         * @param event event returned by {@link #begin()}, null is ignored
+         * @param values values of the fields of the type, in their order
+         */
+        public void commit(Object event, Object... values) {
+            if (event != null) {
+                JFR.commit(event, values);
+            }
+        }
+    }
+
+    /**
+     * The jdk.jfr methods used, looked up once.
+     */
+    private static class Reflection {
+
+        private final Constructor<?> annotationElement;
+        private final Constructor<?> valueDescriptor;
+        private final Method create;
+        private final Method newEvent;
+        private final Method isEnabled;
+        private final Method begin;
+        private final Method set;
+        private final Method commit;
+        private final Class<?> nameAnnotation;
+        private final Class<?> labelAnnotation;
+        private final Class<?> descriptionAnnotation;
+        private final Class<?> categoryAnnotation;
+
+        private Reflection() throws ReflectiveOperationException {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+            valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+            create = eventFactoryClass.getMethod("create", List.class, List.class);
+            newEvent = eventFactoryClass.getMethod("newEvent");
+            isEnabled = eventClass.getMethod("isEnabled");
+            begin = eventClass.getMethod("begin");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            commit = eventClass.getMethod("commit");
+            nameAnnotation = Class.forName("jdk.jfr.Name");
+            labelAnnotation = Class.forName("jdk.jfr.Label");
+            descriptionAnnotation = Class.forName("jdk.jfr.Description");
+            categoryAnnotation = Class.forName("jdk.jfr.Category");
+        }
+
+        static Reflection load() {
+            try {
+                return new Reflection();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.debug("Java Flight Recorder events are not available on this JVM, {}", e.toString());
+                return null;
+            }
+        }
+
+        Object createFactory(String name, String label, String description, Field[] fields) {
+            try {
+                List<Object> annotations = new ArrayList<>();
+                annotations.add(annotationElement.newInstance(nameAnnotation, name));
+                annotations.add(annotationElement.newInstance(labelAnnotation, label));
+                annotations.add(annotationElement.newInstance(descriptionAnnotation, description));
+                annotations.add(annotationElement.newInstance(categoryAnnotation, new String[]{CATEGORY}));
+                List<Object> descriptors = new ArrayList<>();
+                for (Field field : fields) {
+                    List<Object> fieldAnnotations = Collections.singletonList(annotationElement.newInstance(labelAnnotation, field.label));
+                    descriptors.add(valueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+                }
+                return create.invoke(null, annotations, descriptors);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.error("Creating the flight recorder event {} failed, {}", name, e.toString());
+                return null;
+            }
+        }
+
+        Object begin(Object factory) {
+            try {
+                Object event = newEvent.invoke(factory);
+                if (!(Boolean) isEnabled.invoke(event)) {
+                    return null;
+                }
+                begin.invoke(event);
+                return event;
+            } catch (ReflectiveOperationException e) {
+                log.debug("Starting a flight recorder event failed, {}", e.toString());
+                return null;
+            }
+        }
+
+        void commit(Object event, Object[] values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    set.invoke(event, i, values[i]);
+                }
+                commit.invoke(event);
+            } catch (ReflectiveOperationException e) {
+                log.debug("Committing a flight recorder event failed, {}", e.toString());
+            }
+        }
+    }
+}
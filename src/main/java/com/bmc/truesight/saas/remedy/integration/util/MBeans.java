@@ -0,0 +1,58 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registration of the MBeans of the library in the platform MBean server,
+ * under the {@link Constants#JMX_DOMAIN} domain. A failure to register is
+ * logged and never fails the ingestion.
+ *
+ * @author vitiwari
+ */
+public class MBeans {
+
+    private static final Logger log = LoggerFactory.getLogger(MBeans.class);
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    /**
+     * @param mbean MXBean to register
+     * @param type type of the MBean, ex IngestionPipeline
+     * @param name name of the instance, ex the form, a sequence no is added
+     * to keep the names of concurrent instances unique
+     * @return name under which the MBean is registered, null if it could not
+     * be registered
+     */
+    public static ObjectName register(Object mbean, String type, String name) {
+        try {
+            ObjectName objectName = new ObjectName(Constants.JMX_DOMAIN + ":type=" + type + ",name=" + name + "-" + SEQUENCE.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, objectName);
+            log.debug("Registered MBean {}", objectName);
+            return objectName;
+        } catch (JMException e) {
+            log.error("Registering the {} MBean failed, {}", type, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param objectName name returned by {@link #register(Object, String, String)},
+     * null is ignored
+     */
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            log.debug("Unregistering the MBean {} failed, {}", objectName, e.getMessage());
+        }
+    }
+}
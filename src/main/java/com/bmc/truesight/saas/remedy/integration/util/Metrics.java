@@ -0,0 +1,43 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import com.bmc.truesight.saas.remedy.integration.MetricsRegistry;
+import com.bmc.truesight.saas.remedy.integration.beans.Metric;
+import com.bmc.truesight.saas.remedy.integration.impl.NoopMetricsRegistry;
+
+/**
+ * Holder of the {@link MetricsRegistry} used by the library. The readers and
+ * http clients are created in many places, so the registry is process wide
+ * rather than passed along, a {@link NoopMetricsRegistry} unless one is set.
+ *
+ * @author vitiwari
+ */
+public class Metrics {
+
+    private static volatile MetricsRegistry registry = NoopMetricsRegistry.INSTANCE;
+
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @param metricsRegistry registry receiving the metrics from now on, null
+     * to stop recording
+     */
+    public static void setRegistry(MetricsRegistry metricsRegistry) {
+        registry = metricsRegistry != null ? metricsRegistry : NoopMetricsRegistry.INSTANCE;
+    }
+
+    public static void increment(Metric metric, long delta) {
+        registry.increment(metric, delta);
+    }
+
+    /**
+     * Records the time elapsed since start.
+     *
+     * @param metric timer {@link Metric}
+     * @param startNanos value of {@link System#nanoTime()} at the start
+     */
+    public static void recordSince(Metric metric, long startNanos) {
+        registry.recordNanos(metric, System.nanoTime() - startNanos);
+    }
+}
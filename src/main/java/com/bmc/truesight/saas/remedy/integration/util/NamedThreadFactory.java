@@ -0,0 +1,29 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ThreadFactory} which gives the library threads a recognizable name
+ * (ex tsi-ingestion-1) in thread dumps and logs.
+ *
+ * @author vitiwari
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final boolean daemon;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public NamedThreadFactory(String prefix, boolean daemon) {
+        this.prefix = prefix;
+        this.daemon = daemon;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+        thread.setDaemon(daemon);
+        return thread;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exponentially weighted moving rate, like the load average of unix: the
+ * marks are counted over ticks of {@link Constants#RATE_METER_TICK_MS} and
+ * the rate of every tick is blended into a rate averaged over about
+ * {@link Constants#RATE_METER_WINDOW_MS}. The ticks are taken lazily, by the
+ * threads marking or reading the meter, no timer thread is needed.
+ *
+ * @author vitiwari
+ */
+public class RateMeter {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(Constants.RATE_METER_TICK_MS);
+    private static final double ALPHA = 1 - Math.exp(-(double) Constants.RATE_METER_TICK_MS / Constants.RATE_METER_WINDOW_MS);
+
+    private final LongAdder uncounted = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong lastTick = new AtomicLong(System.nanoTime());
+    private volatile double ratePerTick = -1;
+
+    public void mark(long n) {
+        tickIfNecessary();
+        uncounted.add(n);
+        count.add(n);
+    }
+
+    /**
+     * @return moving rate per second, 0 until the first tick
+     */
+    public double getRatePerSecond() {
+        tickIfNecessary();
+        double rate = ratePerTick;
+        return rate < 0 ? 0 : rate * TimeUnit.SECONDS.toNanos(1) / TICK_NANOS;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    private void tickIfNecessary() {
+        long previous = lastTick.get();
+        long age = System.nanoTime() - previous;
+        if (age > TICK_NANOS && lastTick.compareAndSet(previous, previous + age - age % TICK_NANOS)) {
+            // the ticks without marks decay the rate as well
+            for (long i = age / TICK_NANOS; i > 0; i--) {
+                tick();
+            }
+        }
+    }
+
+    private void tick() {
+        double instant = uncounted.sumThenReset();
+        double rate = ratePerTick;
+        ratePerTick = rate < 0 ? instant : rate + ALPHA * (instant - rate);
+    }
+}
@@ -0,0 +1,84 @@
+package com.bmc.truesight.saas.remedy.integration.util;
+
+import java.util.List;
+import java.util.Map;
+
+import com.bmc.arsys.api.Entry;
+import com.bmc.arsys.api.Value;
+import com.bmc.truesight.saas.remedy.integration.beans.EventSource;
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+
+/**
+ * Rough estimates of the heap retained by the tickets and events, used for
+ * the memory accounting of the ingestion. The estimates assume a 64 bit JVM
+ * with compressed references, they are meant to be cheap rather than exact.
+ *
+ * @author vitiwari
+ */
+public class SizeEstimator {
+
+    private static final long OBJECT_HEADER = 16;
+    private static final long STRING_OVERHEAD = 40;
+    private static final long MAP_ENTRY_OVERHEAD = 40;
+    private static final long BOXED_VALUE = 16;
+
+    public static long estimateString(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+    }
+
+    public static long estimateEntry(Entry entry) {
+        long size = OBJECT_HEADER + MAP_ENTRY_OVERHEAD + estimateString(entry.getEntryId());
+        for (Map.Entry<Integer, Value> field : entry.entrySet()) {
+            size += MAP_ENTRY_OVERHEAD + BOXED_VALUE + OBJECT_HEADER;
+            Object value = field.getValue() != null ? field.getValue().getValue() : null;
+            if (value instanceof String) {
+                size += estimateString((String) value);
+            } else if (value != null) {
+                size += OBJECT_HEADER + BOXED_VALUE;
+            }
+        }
+        return size;
+    }
+
+    public static long estimateEntries(List<Entry> entries) {
+        long size = OBJECT_HEADER;
+        for (Entry entry : entries) {
+            size += estimateEntry(entry);
+        }
+        return size;
+    }
+
+    public static long estimateEvent(TSIEvent event) {
+        long size = OBJECT_HEADER * 3;
+        size += estimateString(event.getTitle()) + estimateString(event.getSeverity()) + estimateString(event.getStatus())
+                + estimateString(event.getMessage()) + estimateString(event.getCreatedAt()) + estimateString(event.getEventClass())
+                + estimateString(event.getEntryId());
+        EventSource source = event.getSource();
+        if (source != null) {
+            size += OBJECT_HEADER + estimateString(source.getName()) + estimateString(source.getType()) + estimateString(source.getRef());
+        }
+        if (event.getFingerprintFields() != null) {
+            for (String field : event.getFingerprintFields()) {
+                size += estimateString(field);
+            }
+        }
+        if (event.getProperties() != null) {
+            for (Map.Entry<String, String> property : event.getProperties().entrySet()) {
+                size += MAP_ENTRY_OVERHEAD + estimateString(property.getKey()) + estimateString(property.getValue());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Estimates an event while it is sent, ie the event itself plus its json
+     * payload as a String and as the UTF-8 bytes of the request entity.
+     *
+     * @param event {@link TSIEvent} to be sent
+     * @param serializedBytes size of the event json in bytes
+     * @return estimated bytes
+     */
+    public static long estimateEventInFlight(TSIEvent event, long serializedBytes) {
+        return estimateEvent(event) + 3 * serializedBytes;
+    }
+}
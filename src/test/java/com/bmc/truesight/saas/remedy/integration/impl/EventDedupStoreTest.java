@@ -0,0 +1,104 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+
+/**
+ * Tests of {@link EventDedupStore} lookups, before and after the table grows.
+ *
+ * @author vitiwari
+ */
+public class EventDedupStoreTest {
+
+    private static final int TICKETS = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testUnchangedEventsAreDropped() throws IOException {
+        try (EventDedupStore store = new EventDedupStore(folder.newFile("dedup.tbl"), 16)) {
+            store.record(event("INC1", "open"));
+            List<TSIEvent> changed = store.filterChanged(Arrays.asList(event("INC1", "open"), event("INC1", "closed"), event("INC2", "open")));
+            assertEquals(Arrays.asList("closed", "open"), statuses(changed));
+            assertEquals("INC2", changed.get(1).getProperties().get("Incident Number"));
+            assertEquals(1, store.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void testEventsWithoutFingerprintAreKept() throws IOException {
+        try (EventDedupStore store = new EventDedupStore(folder.newFile("dedup.tbl"), 16)) {
+            TSIEvent event = new TSIEvent();
+            event.setStatus("open");
+            store.record(event);
+            assertEquals(0, store.size());
+            assertFalse(store.isUnchanged(event));
+        }
+    }
+
+    @Test
+    public void testLookupsAfterGrow() throws IOException {
+        File file = folder.newFile("dedup.tbl");
+        long initialBytes;
+        try (EventDedupStore store = new EventDedupStore(file, 16)) {
+            initialBytes = file.length();
+            for (int i = 0; i < TICKETS; i++) {
+                store.record(event("INC" + i, "open"));
+            }
+            // an update after the grows replaces the content hash of the ticket
+            store.record(event("INC7", "closed"));
+            assertEquals(TICKETS, store.size());
+            assertTrue(file.length() > initialBytes);
+            assertFalse(new File(file.getPath() + Constants.CHECKPOINT_TEMP_SUFFIX).exists());
+            assertLookups(store);
+        }
+        try (EventDedupStore store = new EventDedupStore(file, 16)) {
+            assertEquals(TICKETS, store.size());
+            assertLookups(store);
+        }
+    }
+
+    private static void assertLookups(EventDedupStore store) {
+        for (int i = 0; i < TICKETS; i++) {
+            String status = i == 7 ? "closed" : "open";
+            assertTrue("INC" + i, store.isUnchanged(event("INC" + i, status)));
+            assertFalse("INC" + i, store.isUnchanged(event("INC" + i, "pending")));
+        }
+        assertFalse(store.isUnchanged(event("INC7", "open")));
+        assertFalse(store.isUnchanged(event("INC" + TICKETS, "open")));
+    }
+
+    private static TSIEvent event(String ticket, String status) {
+        TSIEvent event = new TSIEvent();
+        event.setTitle("Ticket " + ticket);
+        event.setStatus(status);
+        event.setFingerprintFields(Collections.singletonList("Incident Number"));
+        event.setProperties(new HashMap<>(Collections.singletonMap("Incident Number", ticket)));
+        return event;
+    }
+
+    private static List<String> statuses(List<TSIEvent> events) {
+        List<String> statuses = new ArrayList<>();
+        for (TSIEvent event : events) {
+            statuses.add(event.getStatus());
+        }
+        return statuses;
+    }
+}
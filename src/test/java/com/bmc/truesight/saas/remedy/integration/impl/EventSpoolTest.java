@@ -0,0 +1,157 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bmc.truesight.saas.remedy.integration.beans.TSIEvent;
+
+/**
+ * Tests of {@link EventSpool} recovery, compaction and paging.
+ *
+ * @author vitiwari
+ */
+public class EventSpoolTest {
+
+    // length + state + checksum
+    private static final int RECORD_HEADER_BYTES = 9;
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecoveryAfterPartialWrite() throws IOException {
+        File directory = folder.newFolder("spool");
+        try (EventSpool spool = new EventSpool(directory, SEGMENT_BYTES)) {
+            for (int i = 0; i < 4; i++) {
+                spool.append(event("E" + i, "t" + i));
+            }
+        }
+        try (RandomAccessFile segment = new RandomAccessFile(new File(directory, "spool-1.seg"), "rw")) {
+            int second = RECORD_HEADER_BYTES + segment.readInt();
+            segment.seek(second);
+            int secondLength = segment.readInt();
+            // a byte of the json of the second record
+            int corrupted = second + RECORD_HEADER_BYTES + 20;
+            segment.seek(corrupted);
+            int value = segment.read();
+            segment.seek(corrupted);
+            segment.write(value ^ 0x55);
+            int third = second + RECORD_HEADER_BYTES + secondLength;
+            segment.seek(third);
+            int fourth = third + RECORD_HEADER_BYTES + segment.readInt();
+            // a length shorter than the record header, as left by a torn write
+            segment.seek(fourth);
+            segment.writeInt(3);
+        }
+        try (EventSpool spool = new EventSpool(directory, SEGMENT_BYTES)) {
+            List<TSIEvent> pending = spool.getPendingEvents(0, 10);
+            assertEquals(Arrays.asList("t0", "t2"), titles(pending));
+            assertEquals(Arrays.asList(1L, 3L), recordIds(pending));
+            assertEquals("E2", pending.get(1).getEntryId());
+            // the torn record is truncated, its record id is written again
+            assertEquals(4L, spool.append(event("E4", "t4")));
+        }
+        try (EventSpool spool = new EventSpool(directory, SEGMENT_BYTES)) {
+            assertEquals(Arrays.asList("t0", "t2", "t4"), titles(spool.getPendingEvents(0, 10)));
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsRecordIds() throws IOException {
+        File directory = folder.newFolder("spool");
+        List<Long> recordIds = new ArrayList<>();
+        try (EventSpool spool = new EventSpool(directory, SEGMENT_BYTES)) {
+            int i = 0;
+            while (spool.getSegmentCount() < 2) {
+                recordIds.add(spool.append(event("E" + i, "t" + i)));
+                i++;
+            }
+            long kept = recordIds.get(1);
+            long last = recordIds.get(recordIds.size() - 1);
+            // the last record is the first one of the second segment
+            for (long recordId : recordIds.subList(0, recordIds.size() - 1)) {
+                if (recordId != kept) {
+                    assertTrue(spool.ack(recordId));
+                }
+            }
+            spool.compact();
+            assertEquals(1, spool.getSegmentCount());
+            assertFalse(new File(directory, "spool-1.seg").exists());
+            List<TSIEvent> pending = spool.getPendingEvents(0, 10);
+            assertEquals(Arrays.asList(kept, last), recordIds(pending));
+            assertEquals(Arrays.asList("t1", "t" + (recordIds.size() - 1)), titles(pending));
+            assertEquals("E1", pending.get(0).getEntryId());
+        }
+        try (EventSpool spool = new EventSpool(directory, SEGMENT_BYTES)) {
+            assertEquals(Arrays.asList(recordIds.get(1), recordIds.get(recordIds.size() - 1)), recordIds(spool.getPendingEvents(0, 10)));
+            assertTrue(spool.ack(recordIds.get(1)));
+            assertFalse(spool.ack(recordIds.get(1)));
+            assertEquals(recordIds.get(recordIds.size() - 1) + 1, spool.append(event("E1", "t1 again")));
+        }
+        try (EventSpool spool = new EventSpool(directory, SEGMENT_BYTES)) {
+            assertEquals(Arrays.asList("t" + (recordIds.size() - 1), "t1 again"), titles(spool.getPendingEvents(0, 10)));
+        }
+    }
+
+    @Test
+    public void testNewerVersionSupersedesPendingOne() throws IOException {
+        try (EventSpool spool = new EventSpool(folder.newFolder("spool"), SEGMENT_BYTES)) {
+            long first = spool.append(event("E1", "old"));
+            long second = spool.append(event("E1", "new"));
+            assertEquals(1, spool.getPendingCount());
+            assertFalse(spool.ack(first));
+            assertEquals(Arrays.asList("new"), titles(spool.getPendingEvents(0, 10)));
+            assertTrue(spool.ack(second));
+            assertEquals(0, spool.getPendingCount());
+        }
+    }
+
+    @Test
+    public void testPendingEventsArePaged() throws IOException {
+        try (EventSpool spool = new EventSpool(folder.newFolder("spool"), SEGMENT_BYTES)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(event("E" + i, "t" + i));
+            }
+            spool.ack(3);
+            assertEquals(Arrays.asList(1L, 2L), recordIds(spool.getPendingEvents(0, 2)));
+            assertEquals(Arrays.asList(4L, 5L), recordIds(spool.getPendingEvents(2, 2)));
+            assertTrue(spool.getPendingEvents(5, 2).isEmpty());
+        }
+    }
+
+    private static TSIEvent event(String entryId, String title) {
+        TSIEvent event = new TSIEvent();
+        event.setEntryId(entryId);
+        event.setTitle(title);
+        return event;
+    }
+
+    private static List<String> titles(List<TSIEvent> events) {
+        List<String> titles = new ArrayList<>();
+        for (TSIEvent event : events) {
+            titles.add(event.getTitle());
+        }
+        return titles;
+    }
+
+    private static List<Long> recordIds(List<TSIEvent> events) {
+        List<Long> recordIds = new ArrayList<>();
+        for (TSIEvent event : events) {
+            recordIds.add(event.getSpoolRecordId());
+        }
+        return recordIds;
+    }
+}
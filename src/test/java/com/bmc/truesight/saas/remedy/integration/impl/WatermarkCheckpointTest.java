@@ -0,0 +1,67 @@
+package com.bmc.truesight.saas.remedy.integration.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bmc.truesight.saas.remedy.integration.beans.Watermark;
+import com.bmc.truesight.saas.remedy.integration.util.Constants;
+
+/**
+ * Tests of {@link WatermarkCheckpoint}.
+ *
+ * @author vitiwari
+ */
+public class WatermarkCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLoadWithoutSave() throws IOException {
+        assertNull(new WatermarkCheckpoint(new File(folder.getRoot(), "watermark.json")).load());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = new File(folder.getRoot(), "sync/watermark.json");
+        new WatermarkCheckpoint(file).save(new Watermark(1009L, "E009"));
+        Watermark loaded = new WatermarkCheckpoint(file).load();
+        assertEquals(1009L, loaded.getLastModified());
+        assertEquals("E009", loaded.getEntryId());
+    }
+
+    @Test
+    public void testSaveReplacesPreviousWatermark() throws IOException {
+        File file = new File(folder.getRoot(), "watermark.json");
+        WatermarkCheckpoint checkpoint = new WatermarkCheckpoint(file);
+        checkpoint.save(new Watermark(1009L, "E009"));
+        checkpoint.save(new Watermark(1024L, "E024"));
+        Watermark loaded = checkpoint.load();
+        assertEquals(1024L, loaded.getLastModified());
+        assertEquals("E024", loaded.getEntryId());
+        assertFalse(new File(file.getPath() + Constants.CHECKPOINT_TEMP_SUFFIX).exists());
+    }
+
+    @Test
+    public void testLeftoverTempFileIsIgnored() throws IOException {
+        File file = new File(folder.getRoot(), "watermark.json");
+        WatermarkCheckpoint checkpoint = new WatermarkCheckpoint(file);
+        checkpoint.save(new Watermark(1009L, "E009"));
+        // a save interrupted before the move leaves a partial temp file
+        File temp = new File(file.getPath() + Constants.CHECKPOINT_TEMP_SUFFIX);
+        Files.write(temp.toPath(), "{\"lastMod".getBytes("UTF-8"));
+        assertEquals("E009", checkpoint.load().getEntryId());
+        checkpoint.save(new Watermark(1024L, "E024"));
+        assertEquals("E024", checkpoint.load().getEntryId());
+        assertFalse(temp.exists());
+    }
+}